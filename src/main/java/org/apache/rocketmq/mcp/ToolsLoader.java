@@ -1,69 +1,98 @@
 package org.apache.rocketmq.mcp;
 
+import java.util.Arrays;
+import org.apache.rocketmq.mcp.spring.RequestCoalescer;
+import org.apache.rocketmq.mcp.spring.ToolCallbackDecorator;
+import org.apache.rocketmq.mcp.spring.ToolResultCache;
 import org.apache.rocketmq.mcp.tool.Acl;
 import org.apache.rocketmq.mcp.tool.Broker;
 import org.apache.rocketmq.mcp.tool.Cluster;
 import org.apache.rocketmq.mcp.tool.ConsumeQueue;
 import org.apache.rocketmq.mcp.tool.Consumer;
 import org.apache.rocketmq.mcp.tool.Controller;
+import org.apache.rocketmq.mcp.tool.Federation;
 import org.apache.rocketmq.mcp.tool.Message;
 import org.apache.rocketmq.mcp.tool.Nameserver;
 import org.apache.rocketmq.mcp.tool.Producer;
 import org.apache.rocketmq.mcp.tool.Topic;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
 
 @Service
 public class ToolsLoader {
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    @Autowired
+    private ToolResultCache toolResultCache;
+
     @Bean
     public ToolCallbackProvider buildAclTool(Acl tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildBrokerTool(Broker tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildClusterTool(Cluster tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildConsumeQueueTool(ConsumeQueue tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildConsumerTool(Consumer tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildControllerTool(Controller tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
+    }
+
+    @Bean
+    public ToolCallbackProvider buildFederationTool(Federation tool) {
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildMessageTool(Message tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildNameserverTool(Nameserver tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildProducerTool(Producer tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
     }
 
     @Bean
     public ToolCallbackProvider buildTopicTool(Topic tool) {
-        return MethodToolCallbackProvider.builder().toolObjects(tool).build();
+        return decorate(tool);
+    }
+
+    /**
+     * 工具类的简单类名作为结果缓存的分组, 同一个工具类中的写操作会使该类所有只读工具的缓存失效
+     */
+    private ToolCallbackProvider decorate(Object tool) {
+        String group = ClassUtils.getUserClass(tool).getSimpleName();
+        ToolCallback[] toolCallbacks = Arrays.stream(MethodToolCallbackProvider.builder().toolObjects(tool).build().getToolCallbacks())
+                .map(toolCallback -> new ToolCallbackDecorator(toolCallback, group, requestCoalescer, toolResultCache))
+                .toArray(ToolCallback[]::new);
+        return () -> toolCallbacks;
     }
 }
@@ -1,11 +1,16 @@
 package org.apache.rocketmq.mcp.common;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.function.Function;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.acl.common.AclClientRPCHook;
 import org.apache.rocketmq.acl.common.SessionCredentials;
 import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.remoting.RPCHook;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 
 public class AdminUtil {
@@ -14,9 +19,9 @@ public class AdminUtil {
     private static final String DEFAULT_SK = System.getProperty("SK", System.getenv("SK"));
 
     public static String callAdmin(Function<DefaultMQAdminExt, String> func, String ak, String sk, List<String> nameserverAddressList) throws MQClientException {
-        String _ns = (nameserverAddressList == null || nameserverAddressList.isEmpty()) ? DEFAULT_NAME_SERVER : StringUtils.join(nameserverAddressList, ";");
-        String _ak = (ak == null || ak.trim().isEmpty()) ? DEFAULT_AK : ak.trim();
-        String _sk = (sk == null || sk.trim().isEmpty()) ? DEFAULT_SK : sk.trim();
+        String _ns = resolveNameserver(nameserverAddressList);
+        String _ak = resolveAk(ak);
+        String _sk = resolveSk(sk);
         DefaultMQAdminExt admin = getAdmin(_ns, _ak, _sk);
         try {
             return func.apply(admin);
@@ -37,9 +42,9 @@ public class AdminUtil {
             return validationResult;
         }
 
-        String _ns = (nameserverAddressList == null || nameserverAddressList.isEmpty()) ? DEFAULT_NAME_SERVER : StringUtils.join(nameserverAddressList, ";");
-        String _ak = (ak == null || ak.trim().isEmpty()) ? DEFAULT_AK : ak.trim();
-        String _sk = (sk == null || sk.trim().isEmpty()) ? DEFAULT_SK : sk.trim();
+        String _ns = resolveNameserver(nameserverAddressList);
+        String _ak = resolveAk(ak);
+        String _sk = resolveSk(sk);
         DefaultMQAdminExt admin = null;
         try {
             admin = getAdmin(_ns, _ak, _sk);
@@ -57,7 +62,7 @@ public class AdminUtil {
     /**
      * 验证必填参数不能为空
      */
-    private static <T> ApiResponse<T> validateRequiredParameters(String ak, String sk, List<String> nameserverAddressList) {
+    public static <T> ApiResponse<T> validateRequiredParameters(String ak, String sk, List<String> nameserverAddressList) {
         if (nameserverAddressList == null || nameserverAddressList.isEmpty()) {
             return ApiResponse.error("nameserverAddressList不能为空");
         }
@@ -73,6 +78,45 @@ public class AdminUtil {
         return null;
     }
 
+    /**
+     * 集群级缓存使用的key: nameserver地址 + ak + sk摘要, 与callAdmin使用相同的默认值
+     * 不同凭证之间不共享缓存数据, sk只以摘要形式保存
+     */
+    public static String clusterKey(List<String> nameserverAddressList, String ak, String sk) {
+        return resolveNameserver(nameserverAddressList) + "|" + resolveAk(ak) + "|" + digest(resolveSk(sk));
+    }
+
+    public static String resolveNameserver(List<String> nameserverAddressList) {
+        return (nameserverAddressList == null || nameserverAddressList.isEmpty()) ? DEFAULT_NAME_SERVER : StringUtils.join(nameserverAddressList, ";");
+    }
+
+    public static String resolveAk(String ak) {
+        return (ak == null || ak.trim().isEmpty()) ? DEFAULT_AK : ak.trim();
+    }
+
+    public static String resolveSk(String sk) {
+        return (sk == null || sk.trim().isEmpty()) ? DEFAULT_SK : sk.trim();
+    }
+
+    public static String digest(String value) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ak和sk都不为空时返回ACL签名hook, 否则返回null; 生产者、消费者等客户端与admin使用相同的凭证处理
+     */
+    public static RPCHook getRpcHook(String ak, String sk) {
+        if (StringUtils.isNotBlank(ak) && StringUtils.isNotBlank(sk)) {
+            return new AclClientRPCHook(new SessionCredentials(ak, sk));
+        }
+        return null;
+    }
+
     public static DefaultMQAdminExt getAdmin(String nameserverAddressList, String ak, String sk) throws MQClientException {
         DefaultMQAdminExt admin = null;
         if (StringUtils.isNotBlank(ak) && StringUtils.isNotBlank(sk)) {
@@ -0,0 +1,153 @@
+package org.apache.rocketmq.mcp.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * 并发扇出工具
+ * 将同一个操作并发地作用在一组key(broker地址、集群、主题等)上, 每个key的结果单独返回,
+ * 单个key失败或超时不影响其他key
+ */
+public class ParallelUtil {
+    public static final int DEFAULT_PARALLELISM = 16;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+    public static final String NOT_ATTEMPTED = "not attempted";
+    public static final String OUTCOME_UNKNOWN = "outcome unknown";
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-parallel-" + THREAD_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @FunctionalInterface
+    public interface Task<K, V> {
+        V call(K key) throws Exception;
+    }
+
+    public static <K, V> Map<K, ApiResponse<V>> invokeAll(Collection<K> keys, Task<K, V> task) {
+        return invokeAll(keys, task, DEFAULT_PARALLELISM, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 并发执行task, 最多parallelism个任务同时运行, 整体不超过timeoutMillis
+     * 返回结果按keys的顺序排列, 超时未完成的key返回错误响应; 超时时会中断仍在运行的任务, 只适用于读操作和幂等操作,
+     * 非幂等的写操作使用invokeAllWrites
+     */
+    public static <K, V> Map<K, ApiResponse<V>> invokeAll(Collection<K> keys, Task<K, V> task, int parallelism, long timeoutMillis) {
+        return invoke(keys, task, parallelism, timeoutMillis, true);
+    }
+
+    /**
+     * 用于非幂等的写操作: 超过timeoutMillis后不再领取新的key, 但不中断已经开始的任务;
+     * 未开始的key返回以NOT_ATTEMPTED开头的错误, 已开始但未完成的key返回以OUTCOME_UNKNOWN开头的错误
+     */
+    public static <K, V> Map<K, ApiResponse<V>> invokeAllWrites(Collection<K> keys, Task<K, V> task, int parallelism, long timeoutMillis) {
+        return invoke(keys, task, parallelism, timeoutMillis, false);
+    }
+
+    private static <K, V> Map<K, ApiResponse<V>> invoke(Collection<K> keys, Task<K, V> task, int parallelism, long timeoutMillis,
+                                                        boolean interrupt) {
+        List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, ApiResponse<V>> results = new ConcurrentHashMap<>();
+        Set<K> started = ConcurrentHashMap.newKeySet();
+        Queue<K> pending = new ConcurrentLinkedQueue<>(distinctKeys);
+        AtomicBoolean stopped = new AtomicBoolean();
+
+        // 固定数量的worker从队列中领取key, 避免为每个key都占用一个线程
+        int workers = Math.max(1, Math.min(parallelism, distinctKeys.size()));
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers && !distinctKeys.isEmpty(); i++) {
+            futures.add(EXECUTOR.submit(() -> {
+                K key;
+                while (!Thread.currentThread().isInterrupted() && !stopped.get() && (key = pending.poll()) != null) {
+                    started.add(key);
+                    try {
+                        results.put(key, ApiResponse.success(task.call(key)));
+                    } catch (Exception e) {
+                        results.put(key, ApiResponse.error(errorMessage(e)));
+                    }
+                }
+            }));
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                break;
+            } catch (ExecutionException e) {
+                // worker内部已经捕获了任务异常, 这里不会发生
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        stopped.set(true);
+        if (interrupt) {
+            pending.clear();
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        Map<K, ApiResponse<V>> ordered = new LinkedHashMap<>();
+        for (K key : distinctKeys) {
+            ApiResponse<V> result = results.get(key);
+            if (result == null) {
+                result = interrupt ? ApiResponse.error("timeout after " + timeoutMillis + "ms")
+                        : ApiResponse.error((started.contains(key) ? OUTCOME_UNKNOWN + ", still running" : NOT_ATTEMPTED)
+                        + " after " + timeoutMillis + "ms");
+            }
+            ordered.put(key, result);
+        }
+        return ordered;
+    }
+
+    /**
+     * 只保留成功的结果
+     */
+    public static <K, V> Map<K, V> successData(Map<K, ApiResponse<V>> results) {
+        Map<K, V> data = new LinkedHashMap<>();
+        results.forEach((key, result) -> {
+            if (result.getErrorCode() == 0) {
+                data.put(key, result.getData());
+            }
+        });
+        return data;
+    }
+
+    /**
+     * 只保留失败的错误信息
+     */
+    public static <K, V> Map<K, String> errorMessages(Map<K, ApiResponse<V>> results) {
+        Map<K, String> errors = new LinkedHashMap<>();
+        results.forEach((key, result) -> {
+            if (result.getErrorCode() != 0) {
+                errors.put(key, result.getErrorMessage());
+            }
+        });
+        return errors;
+    }
+
+    public static String errorMessage(Throwable e) {
+        return ExceptionUtils.getRootCauseMessage(e);
+    }
+}
@@ -0,0 +1,32 @@
+package org.apache.rocketmq.mcp.common;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 幂等操作的重试, 每次重试前按线性退避等待
+ */
+public class RetryUtil {
+
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long DEFAULT_BACKOFF_MILLIS = 500;
+
+    private RetryUtil() {
+    }
+
+    public static <V> V callWithRetry(Callable<V> callable, int maxRetries, long backoffMillis) throws Exception {
+        int attempt = 0;
+        while (true) {
+            try {
+                return callable.call();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                attempt++;
+                Thread.sleep(backoffMillis * attempt);
+            }
+        }
+    }
+}
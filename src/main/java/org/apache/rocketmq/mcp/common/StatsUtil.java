@@ -0,0 +1,89 @@
+package org.apache.rocketmq.mcp.common;
+
+import java.util.Arrays;
+
+/**
+ * 采样统计工具
+ * 分位数取最近秩, 分位数的置信区间按顺序统计量的二项分布正态近似计算, 比例的置信区间使用Wilson区间;
+ * 整块抽样(块内样本相关)时传入块数作为有效样本量, 区间为近似值
+ */
+public class StatsUtil {
+
+    /**
+     * 95%置信水平对应的z值
+     */
+    public static final double Z_95 = 1.96;
+
+    private StatsUtil() {
+    }
+
+    public record Interval(double estimate, double lower, double upper) {
+    }
+
+    public record LatencySummary(int samples, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+    }
+
+    /**
+     * 由纳秒耗时计算毫秒分位数, 不修改传入的数组
+     */
+    public static LatencySummary latencySummary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return new LatencySummary(sorted.length, percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    /**
+     * sorted必须已升序排列, q取值[0, 1]
+     */
+    public static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank))];
+    }
+
+    /**
+     * 分位数及其95%置信区间, 区间端点为第 nq ± z*sqrt(nq(1-q)) 个顺序统计量
+     */
+    public static Interval percentileWithBounds(long[] sorted, double q) {
+        return percentileWithBounds(sorted, q, sorted.length);
+    }
+
+    /**
+     * effectiveSamples小于样本数时按有效样本量放宽区间, 秩的半宽为 n * z * sqrt(q(1-q)/effectiveSamples)
+     */
+    public static Interval percentileWithBounds(long[] sorted, double q, long effectiveSamples) {
+        int n = sorted.length;
+        if (n == 0) {
+            return new Interval(0, 0, 0);
+        }
+        double halfWidth = n * Z_95 * Math.sqrt(q * (1 - q) / Math.max(1, Math.min(n, effectiveSamples)));
+        int lower = (int) Math.floor(n * q - halfWidth);
+        int upper = (int) Math.ceil(n * q + halfWidth) - 1;
+        return new Interval(percentile(sorted, q), sorted[Math.max(0, lower)], sorted[Math.min(n - 1, upper)]);
+    }
+
+    /**
+     * 比例successes/n及其95% Wilson置信区间, 样本较少或比例接近0、1时比正态近似更稳定
+     */
+    public static Interval wilson(long successes, long n) {
+        return wilson(successes, n, n);
+    }
+
+    /**
+     * 比例由successes/samples估计, 区间宽度按有效样本量n计算
+     */
+    public static Interval wilson(long successes, long samples, long n) {
+        if (samples == 0 || n == 0) {
+            return new Interval(0, 0, 1);
+        }
+        double p = (double) successes / samples;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1 + z2 / n;
+        double center = (p + z2 / (2 * n)) / denominator;
+        double halfWidth = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n)) / denominator;
+        return new Interval(p, Math.max(0, center - halfWidth), Math.min(1, center + halfWidth));
+    }
+}
@@ -0,0 +1,98 @@
+package org.apache.rocketmq.mcp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * broker配置缓存
+ * 按broker缓存配置及其指纹, 未过期且未被写操作失效的broker不会重新拉取
+ */
+@Component
+public class BrokerConfigCache {
+
+    private final ConcurrentMap<String, ConcurrentMap<String, BrokerConfig>> clusters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    /**
+     * 按key排序后的broker配置, fingerprint为全部配置项的摘要
+     */
+    public record BrokerConfig(String brokerAddr, Map<String, String> properties, String fingerprint, long fetchTimestamp) {
+    }
+
+    public record FetchResult(Map<String, BrokerConfig> configs, List<String> fetchedBrokers, List<String> cachedBrokers,
+                              Map<String, String> failedBrokers) {
+    }
+
+    /**
+     * 获取broker配置, 只并发拉取缓存中不存在、已过期或被失效的broker
+     */
+    public FetchResult fetch(String clusterKey, DefaultMQAdminExt admin, Collection<String> brokerAddrs, boolean force) {
+        ConcurrentMap<String, BrokerConfig> cached = clusters.computeIfAbsent(clusterKey, key -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        List<String> toFetch = new ArrayList<>();
+        List<String> cachedBrokers = new ArrayList<>();
+        for (String brokerAddr : brokerAddrs) {
+            BrokerConfig config = cached.get(brokerAddr);
+            if (force || config == null || now - config.fetchTimestamp() >= mcpConfig.getBrokerConfigCacheTtlMillis()) {
+                toFetch.add(brokerAddr);
+            } else {
+                cachedBrokers.add(brokerAddr);
+            }
+        }
+
+        Map<String, ApiResponse<Properties>> fetched = ParallelUtil.invokeAll(toFetch, admin::getBrokerConfig);
+        ParallelUtil.successData(fetched).forEach((brokerAddr, properties) -> cached.put(brokerAddr, toBrokerConfig(brokerAddr, properties)));
+
+        Map<String, String> failedBrokers = ParallelUtil.errorMessages(fetched);
+        Map<String, BrokerConfig> configs = new LinkedHashMap<>();
+        for (String brokerAddr : brokerAddrs) {
+            BrokerConfig config = cached.get(brokerAddr);
+            if (config != null && !failedBrokers.containsKey(brokerAddr)) {
+                configs.put(brokerAddr, config);
+            }
+        }
+        List<String> fetchedBrokers = new ArrayList<>(ParallelUtil.successData(fetched).keySet());
+        return new FetchResult(configs, fetchedBrokers, cachedBrokers, failedBrokers);
+    }
+
+    /**
+     * broker配置被修改后调用, 下一次检查时重新拉取
+     */
+    public void invalidate(String clusterKey, String brokerAddr) {
+        Map<String, BrokerConfig> cached = clusters.get(clusterKey);
+        if (cached != null) {
+            cached.remove(brokerAddr);
+        }
+    }
+
+    private BrokerConfig toBrokerConfig(String brokerAddr, Properties properties) {
+        Map<String, String> sorted = new TreeMap<>();
+        properties.stringPropertyNames().forEach(name -> sorted.put(name, properties.getProperty(name)));
+        return new BrokerConfig(brokerAddr, sorted, fingerprint(sorted), System.currentTimeMillis());
+    }
+
+    /**
+     * 配置项按key排序后计算摘要, 配置项相同的broker指纹相同
+     */
+    public static String fingerprint(Map<String, String> sortedProperties) {
+        StringBuilder builder = new StringBuilder();
+        sortedProperties.forEach((name, value) -> builder.append(name).append('=').append(value).append('\n'));
+        return AdminUtil.digest(builder.toString());
+    }
+}
@@ -0,0 +1,60 @@
+package org.apache.rocketmq.mcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.remoting.protocol.admin.ConsumeStats;
+import org.apache.rocketmq.remoting.protocol.body.ConsumerConnection;
+import org.apache.rocketmq.remoting.protocol.body.ConsumerRunningInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消费者组快照的短期缓存
+ * 快照包含一次并发采集的消费统计、连接信息和各客户端的运行信息(不含线程栈), analyzeRebalanceSkew和不获取线程栈的
+ * getGroupRunningInfo共享同一个快照, 超过mcp.groupSnapshotTtlMillis后重新采集
+ */
+@Component
+public class GroupSnapshotCache {
+
+    private static final int MAX_SNAPSHOTS = 256;
+
+    private Cache<String, GroupSnapshot> cache;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    /**
+     * runningInfos: clientId -> 运行信息; failedClients: clientId -> 错误信息, 也包含连接信息获取失败和超过maxClients被跳过的客户端
+     */
+    public record GroupSnapshot(long timestamp, ConsumeStats consumeStats, ConsumerConnection connection,
+                                Map<String, ConsumerRunningInfo> runningInfos, Map<String, String> failedClients) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(MAX_SNAPSHOTS)
+                .expireAfterWrite(Duration.ofMillis(Math.max(0, mcpConfig.getGroupSnapshotTtlMillis())))
+                .build();
+    }
+
+    public GroupSnapshot get(String clusterKey, String consumerGroup) {
+        return cache.getIfPresent(key(clusterKey, consumerGroup));
+    }
+
+    public void put(String clusterKey, String consumerGroup, GroupSnapshot snapshot) {
+        cache.put(key(clusterKey, consumerGroup), snapshot);
+    }
+
+    public void invalidate(String clusterKey, String consumerGroup) {
+        cache.invalidate(key(clusterKey, consumerGroup));
+    }
+
+    private static String key(String clusterKey, String consumerGroup) {
+        return clusterKey + "|" + consumerGroup;
+    }
+}
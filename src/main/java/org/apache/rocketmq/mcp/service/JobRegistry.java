@@ -0,0 +1,165 @@
+package org.apache.rocketmq.mcp.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 后台任务登记表
+ * 耗时的写操作以任务的形式在后台执行, 工具调用立即返回任务id, 调用方按事件序号增量拉取进度
+ * 只保留最近MAX_JOBS个任务
+ */
+@Component
+public class JobRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRegistry.class);
+    private static final int MAX_JOBS = 100;
+    private static final int MAX_EVENTS_PER_JOB = 10000;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum JobState {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    public interface JobBody {
+        Object run(Job job) throws Exception;
+    }
+
+    public record JobEvent(int sequence, long timestamp, String message) {
+    }
+
+    /**
+     * events只包含序号大于sinceEvent的事件; result在任务结束后才有值
+     */
+    public record JobSnapshot(String jobId, String type, JobState state, long createTimestamp, long finishTimestamp,
+                              int totalSteps, int completedSteps, int failedSteps, List<JobEvent> events,
+                              int lastEventSequence, Object result, String error) {
+    }
+
+    public static class Job {
+        private final String id;
+        private final String type;
+        private final long createTimestamp = System.currentTimeMillis();
+        private final AtomicInteger totalSteps = new AtomicInteger();
+        private final AtomicInteger completedSteps = new AtomicInteger();
+        private final AtomicInteger failedSteps = new AtomicInteger();
+        private final Deque<JobEvent> events = new ArrayDeque<>();
+        private int eventSequence;
+        private volatile JobState state = JobState.RUNNING;
+        private volatile long finishTimestamp;
+        private volatile Object result;
+        private volatile String error;
+
+        private Job(String id, String type) {
+            this.id = id;
+            this.type = type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void addTotalSteps(int steps) {
+            totalSteps.addAndGet(steps);
+        }
+
+        /**
+         * 记录一个步骤完成, message为空时只计数不产生事件
+         */
+        public void stepSucceeded(String message) {
+            completedSteps.incrementAndGet();
+            if (message != null) {
+                event(message);
+            }
+        }
+
+        public void stepFailed(String message) {
+            completedSteps.incrementAndGet();
+            failedSteps.incrementAndGet();
+            event("[fail] " + message);
+        }
+
+        public synchronized void event(String message) {
+            events.addLast(new JobEvent(++eventSequence, System.currentTimeMillis(), message));
+            if (events.size() > MAX_EVENTS_PER_JOB) {
+                events.removeFirst();
+            }
+        }
+
+        public synchronized JobSnapshot snapshot(int sinceEvent) {
+            List<JobEvent> newEvents = new ArrayList<>();
+            for (JobEvent event : events) {
+                if (event.sequence() > sinceEvent) {
+                    newEvents.add(event);
+                }
+            }
+            return new JobSnapshot(id, type, state, createTimestamp, finishTimestamp, totalSteps.get(), completedSteps.get(),
+                    failedSteps.get(), newEvents, eventSequence, result, error);
+        }
+    }
+
+    public Job submit(String type, JobBody body) {
+        evictFinishedJobs();
+        Job job = new Job(UUID.randomUUID().toString(), type);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> {
+            try {
+                job.result = body.run(job);
+                job.state = job.failedSteps.get() == 0 ? JobState.SUCCEEDED : JobState.FAILED;
+            } catch (Throwable e) {
+                logger.warn("任务执行失败: {} {}", type, job.getId(), e);
+                job.error = ParallelUtil.errorMessage(e);
+                job.state = JobState.FAILED;
+            } finally {
+                job.finishTimestamp = System.currentTimeMillis();
+                job.event("job " + job.state);
+            }
+        });
+        return job;
+    }
+
+    public Job get(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < MAX_JOBS) {
+            return;
+        }
+        List<Job> finished = new ArrayList<>();
+        for (Job job : jobs.values()) {
+            if (job.state != JobState.RUNNING) {
+                finished.add(job);
+            }
+        }
+        finished.sort((a, b) -> Long.compare(a.finishTimestamp, b.finishTimestamp));
+        Iterator<Job> iterator = finished.iterator();
+        while (jobs.size() >= MAX_JOBS && iterator.hasNext()) {
+            jobs.remove(iterator.next().getId());
+        }
+    }
+}
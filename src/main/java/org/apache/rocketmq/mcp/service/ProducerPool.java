@@ -0,0 +1,169 @@
+package org.apache.rocketmq.mcp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生产者池
+ * 按 nameserver + 凭证 缓存长期运行的DefaultMQProducer, 避免每次发送都重新启动客户端;
+ * 空闲超过mcp.producerPoolIdleMillis的生产者被关闭, 池满时关闭最久未使用的空闲生产者
+ */
+@Component
+public class ProducerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProducerPool.class);
+    private static final String PRODUCER_GROUP = "MCP_TOOL_PRODUCER";
+
+    private final Map<String, PooledProducer> producers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    public interface ProducerCallback<T> {
+        T call(DefaultMQProducer producer) throws Exception;
+    }
+
+    private static final class PooledProducer {
+        private final DefaultMQProducer producer;
+        private final AtomicInteger inUse = new AtomicInteger();
+        private volatile long lastUsedTimestamp = System.currentTimeMillis();
+
+        private PooledProducer(DefaultMQProducer producer) {
+            this.producer = producer;
+        }
+    }
+
+    /**
+     * 池中生产者的一次占用, close之前该生产者不会被关闭; close可重复调用, 只有第一次生效
+     * 用于异步发送等回调晚于调用返回的场景, 由最后一个回调负责close
+     */
+    public static final class Lease implements AutoCloseable {
+        private final PooledProducer pooled;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(PooledProducer pooled) {
+            this.pooled = pooled;
+        }
+
+        public DefaultMQProducer producer() {
+            return pooled.producer;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                pooled.lastUsedTimestamp = System.currentTimeMillis();
+                pooled.inUse.decrementAndGet();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-producer-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, mcpConfig.getProducerPoolIdleMillis() / 2);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdle(mcpConfig.getProducerPoolIdleMillis());
+            } catch (Throwable e) {
+                logger.warn("关闭空闲生产者失败", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        producers.values().forEach(pooled -> pooled.producer.shutdown());
+        producers.clear();
+    }
+
+    /**
+     * 使用池中的生产者执行callback, 执行期间该生产者不会被关闭
+     */
+    public <T> T execute(List<String> nameserverAddressList, String ak, String sk, ProducerCallback<T> callback) throws Exception {
+        try (Lease lease = lease(nameserverAddressList, ak, sk)) {
+            return callback.call(lease.producer());
+        }
+    }
+
+    /**
+     * 占用池中的生产者直到调用方close
+     */
+    public Lease lease(List<String> nameserverAddressList, String ak, String sk) throws MQClientException {
+        return new Lease(acquire(nameserverAddressList, ak, sk));
+    }
+
+    private synchronized PooledProducer acquire(List<String> nameserverAddressList, String ak, String sk) throws MQClientException {
+        String key = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        PooledProducer pooled = producers.get(key);
+        if (pooled == null) {
+            if (producers.size() >= mcpConfig.getProducerPoolMaxSize() && !evictLeastRecentlyUsed()) {
+                throw new IllegalStateException("producer pool exhausted, all " + producers.size() + " producers are in use");
+            }
+            pooled = new PooledProducer(createProducer(key, AdminUtil.resolveNameserver(nameserverAddressList),
+                    AdminUtil.resolveAk(ak), AdminUtil.resolveSk(sk)));
+            producers.put(key, pooled);
+        }
+        pooled.inUse.incrementAndGet();
+        return pooled;
+    }
+
+    private DefaultMQProducer createProducer(String key, String nameserver, String ak, String sk) throws MQClientException {
+        DefaultMQProducer producer = new DefaultMQProducer(PRODUCER_GROUP, AdminUtil.getRpcHook(ak, sk));
+        producer.setNamesrvAddr(nameserver);
+        // 不同集群的生产者不能共用同一个MQClientInstance
+        producer.setInstanceName("mcp-" + AdminUtil.digest(key).substring(0, 16));
+        producer.start();
+        logger.info("启动生产者: {}", nameserver);
+        return producer;
+    }
+
+    private synchronized void evictIdle(long idleMillis) {
+        long now = System.currentTimeMillis();
+        producers.entrySet().removeIf(entry -> {
+            PooledProducer pooled = entry.getValue();
+            if (pooled.inUse.get() == 0 && now - pooled.lastUsedTimestamp >= idleMillis) {
+                pooled.producer.shutdown();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private boolean evictLeastRecentlyUsed() {
+        Optional<Map.Entry<String, PooledProducer>> idlest = producers.entrySet().stream()
+                .filter(entry -> entry.getValue().inUse.get() == 0)
+                .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedTimestamp));
+        idlest.ifPresent(entry -> {
+            producers.remove(entry.getKey());
+            entry.getValue().producer.shutdown();
+        });
+        return idlest.isPresent();
+    }
+}
@@ -0,0 +1,526 @@
+package org.apache.rocketmq.mcp.service;
+
+import com.alibaba.fastjson2.JSON;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.remoting.protocol.admin.TopicOffset;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息重放
+ * 通过DefaultLitePullConsumer按队列并发地从源主题拉取指定位点或时间范围内的消息, 在客户端按tag过滤后通过池化的生产者批量发送到目标主题;
+ * 每个队列的进度定期写入断点文件, 同一重放再次提交时从断点继续, 保证至少一次(断点之后、中断之前已发送的消息会重复).
+ * 发送失败不在本次运行中重试, 该队列直接失败并保留断点, 避免非幂等的发送被重复执行
+ */
+@Component
+public class ReplayEngine {
+
+    public static final String JOB_TYPE = "messageReplay";
+
+    private static final String CONSUMER_GROUP = "MCP_TOOL_REPLAY_CONSUMER";
+    private static final int PULL_BATCH_SIZE = 32;
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+    private static final long IDLE_CHECK_INTERVAL_MILLIS = 10000;
+    private static final long IDLE_TIMEOUT_MILLIS = 60000;
+
+    private final Set<String> runningReplays = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private McpConfig mcpConfig;
+    @Autowired
+    private ProducerPool producerPool;
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    /**
+     * 位点范围startOffset/endOffset作用于每个队列, 优先于时间范围; 都为空时重放队列中的全部消息;
+     * targetTopic为空时发送回消息的原始主题(重试/死信消息的RETRY_TOPIC属性)
+     */
+    public record ReplayRequest(List<String> nameserverAddressList, String ak, String sk, String sourceTopic,
+                                String targetTopic, Long beginTimestamp, Long endTimestamp, Long startOffset,
+                                Long endOffset, String tagFilter, int maxTps, int batchSize) {
+    }
+
+    /**
+     * 单个队列的重放范围和进度, nextOffset之前的消息都已发送
+     */
+    public record QueueProgress(String brokerName, int queueId, long startOffset, long endOffset, long nextOffset) {
+        public boolean done() {
+            return nextOffset >= endOffset;
+        }
+    }
+
+    public record ReplayCheckpoint(String replayId, String sourceTopic, String targetTopic, String tagFilter,
+                                   Map<String, QueueProgress> queues, long replayed, long skipped, long updateTimestamp) {
+    }
+
+    /**
+     * skipped: 被tag过滤、无法确定目标主题或已过期删除的消息数; failedQueues: 未完成的队列 -> 错误信息, 再次提交同一重放时从断点继续
+     */
+    public record ReplayResult(String replayId, boolean resumed, long replayed, long skipped, int completedQueues,
+                               int totalQueues, Map<String, String> failedQueues, String checkpointFile) {
+    }
+
+    /**
+     * 一次重放运行中的共享状态, 各队列并发更新, 按间隔写入断点文件
+     */
+    private final class ReplayRun {
+        private final String replayId;
+        private final ReplayRequest request;
+        private final Map<String, QueueProgress> queues;
+        private final AtomicLong replayed;
+        private final AtomicLong skipped;
+        private final Pacer pacer;
+        private long lastCheckpointTimestamp;
+
+        private ReplayRun(String replayId, ReplayRequest request, ReplayCheckpoint checkpoint) {
+            this.replayId = replayId;
+            this.request = request;
+            this.queues = new ConcurrentHashMap<>(checkpoint.queues());
+            this.replayed = new AtomicLong(checkpoint.replayed());
+            this.skipped = new AtomicLong(checkpoint.skipped());
+            this.pacer = new Pacer(request.maxTps());
+        }
+
+        private void advance(String queueKey, long nextOffset, int sent, long skippedMessages) throws IOException {
+            queues.computeIfPresent(queueKey, (key, progress) -> new QueueProgress(progress.brokerName(), progress.queueId(),
+                    progress.startOffset(), progress.endOffset(), nextOffset));
+            replayed.addAndGet(sent);
+            skipped.addAndGet(skippedMessages);
+            synchronized (this) {
+                if (System.currentTimeMillis() - lastCheckpointTimestamp >= CHECKPOINT_INTERVAL_MILLIS) {
+                    saveCheckpoint();
+                }
+            }
+        }
+
+        private synchronized void saveCheckpoint() throws IOException {
+            writeCheckpoint(new ReplayCheckpoint(replayId, request.sourceTopic(), request.targetTopic(), request.tagFilter(),
+                    new TreeMap<>(queues), replayed.get(), skipped.get(), System.currentTimeMillis()));
+            lastCheckpointTimestamp = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 按maxTps匀速放行, 所有队列共享; maxTps小于等于0表示不限速
+     */
+    private static final class Pacer {
+        private final long intervalNanos;
+        private long nextNanos = System.nanoTime();
+
+        private Pacer(int maxTps) {
+            this.intervalNanos = maxTps <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxTps;
+        }
+
+        private void acquire(int permits) throws InterruptedException {
+            if (intervalNanos == 0) {
+                return;
+            }
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(nextNanos, now);
+                nextNanos = start + intervalNanos * permits;
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+
+    /**
+     * 重放id由集群、源主题、目标主题、范围和过滤条件决定, 相同参数的重放共享同一个断点
+     */
+    public static String replayId(ReplayRequest request) {
+        return AdminUtil.digest(String.join("|", AdminUtil.clusterKey(request.nameserverAddressList(), request.ak(), request.sk()),
+                request.sourceTopic(), String.valueOf(request.targetTopic()), String.valueOf(request.beginTimestamp()),
+                String.valueOf(request.endTimestamp()), String.valueOf(request.startOffset()), String.valueOf(request.endOffset()),
+                String.valueOf(request.tagFilter()))).substring(0, 16);
+    }
+
+    /**
+     * 后台执行重放, 同一重放同时只能运行一个; 已有断点的源主题、目标主题或tag过滤与请求不一致时拒绝
+     */
+    public JobRegistry.Job submit(String replayId, ReplayRequest request) throws IOException {
+        ReplayCheckpoint checkpoint = loadCheckpoint(replayId);
+        if (checkpoint != null && (!Objects.equals(checkpoint.sourceTopic(), request.sourceTopic())
+                || !Objects.equals(checkpoint.targetTopic(), request.targetTopic())
+                || !Objects.equals(checkpoint.tagFilter(), request.tagFilter()))) {
+            throw new IllegalStateException("checkpoint of replay " + replayId + " was created for sourceTopic=" + checkpoint.sourceTopic()
+                    + ", targetTopic=" + checkpoint.targetTopic() + ", tagFilter=" + checkpoint.tagFilter() + ", which differs from the request");
+        }
+        if (!runningReplays.add(replayId)) {
+            throw new IllegalStateException("replay " + replayId + " is already running");
+        }
+        return jobRegistry.submit(JOB_TYPE, job -> {
+            try {
+                return replay(job, replayId, request);
+            } finally {
+                runningReplays.remove(replayId);
+            }
+        });
+    }
+
+    public ReplayCheckpoint loadCheckpoint(String replayId) throws IOException {
+        Path file = checkpointFile(replayId);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return JSON.parseObject(Files.readString(file, StandardCharsets.UTF_8), ReplayCheckpoint.class);
+    }
+
+    private ReplayResult replay(JobRegistry.Job job, String replayId, ReplayRequest request) throws Exception {
+        ReplayCheckpoint checkpoint = loadCheckpoint(replayId);
+        boolean resumed = checkpoint != null;
+        if (checkpoint == null) {
+            checkpoint = planCheckpoint(replayId, request);
+            writeCheckpoint(checkpoint);
+        }
+        ReplayRun run = new ReplayRun(replayId, request, checkpoint);
+        List<String> pending = new ArrayList<>();
+        run.queues.forEach((queueKey, progress) -> {
+            if (!progress.done()) {
+                pending.add(queueKey);
+            }
+        });
+        job.addTotalSteps(pending.size());
+        job.event((resumed ? "resuming" : "starting") + " replay " + replayId + ": " + pending.size() + " of " + run.queues.size()
+                + " queues pending, " + run.replayed.get() + " messages replayed before");
+
+        Map<String, String> failedQueues = new TreeMap<>();
+        // 断点之后的消息可能已过期删除, 超出[minOffset, maxOffset]的位点无法seek, 先跳过缺失的位点
+        if (!pending.isEmpty() && !skipMissingOffsets(job, run, pending)) {
+            throw new IllegalStateException("failed to check offsets of " + request.sourceTopic() + " before seeking");
+        }
+        pending.removeIf(queueKey -> {
+            if (!run.queues.get(queueKey).done()) {
+                return false;
+            }
+            job.stepSucceeded("queue " + queueKey + " done");
+            return true;
+        });
+        if (!pending.isEmpty()) {
+            DefaultLitePullConsumer consumer = createConsumer(run, pending);
+            try {
+                failedQueues.putAll(producerPool.execute(request.nameserverAddressList(), request.ak(), request.sk(), producer ->
+                        replayQueues(job, run, consumer, producer, pending)));
+            } finally {
+                consumer.shutdown();
+                run.saveCheckpoint();
+            }
+        } else {
+            run.saveCheckpoint();
+        }
+        int completed = (int) run.queues.values().stream().filter(QueueProgress::done).count();
+        return new ReplayResult(replayId, resumed, run.replayed.get(), run.skipped.get(), completed, run.queues.size(),
+                failedQueues, checkpointFile(replayId).toString());
+    }
+
+    /**
+     * 首次运行时确定每个队列的重放范围: 位点范围截断到队列的[minOffset, maxOffset), 时间范围通过searchOffset换算
+     */
+    private ReplayCheckpoint planCheckpoint(String replayId, ReplayRequest request) {
+        ApiResponse<Map<String, QueueProgress>> response = AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                Map<String, QueueProgress> queues = new LinkedHashMap<>();
+                for (Map.Entry<MessageQueue, TopicOffset> entry : admin.examineTopicStats(request.sourceTopic()).getOffsetTable().entrySet()) {
+                    MessageQueue mq = entry.getKey();
+                    long min = entry.getValue().getMinOffset();
+                    long max = entry.getValue().getMaxOffset();
+                    long start = resolveOffset(admin, mq, request.startOffset(), request.beginTimestamp(), min);
+                    long end = resolveOffset(admin, mq, request.endOffset(), request.endTimestamp(), max);
+                    start = Math.min(max, Math.max(min, start));
+                    end = Math.min(max, Math.max(start, end));
+                    queues.put(queueKey(mq), new QueueProgress(mq.getBrokerName(), mq.getQueueId(), start, end, start));
+                }
+                return queues;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, request.ak(), request.sk(), request.nameserverAddressList());
+        if (response.getErrorCode() != 0) {
+            throw new IllegalStateException(response.getErrorMessage());
+        }
+        return new ReplayCheckpoint(replayId, request.sourceTopic(), request.targetTopic(), request.tagFilter(),
+                response.getData(), 0, 0, System.currentTimeMillis());
+    }
+
+    private static long resolveOffset(DefaultMQAdminExt admin, MessageQueue mq, Long offset, Long timestamp, long defaultOffset) throws Exception {
+        if (offset != null) {
+            return offset;
+        }
+        if (timestamp != null) {
+            return admin.searchOffset(mq, timestamp);
+        }
+        return defaultOffset;
+    }
+
+    /**
+     * 轮询消费者直到所有队列完成或失败; 消费者在后台按队列并发拉取, 每批消息只属于一个队列, 在这里按位点顺序处理.
+     * 长时间没有收到消息的队列通过examineTopicStats核对: 消息已过期删除时跳到minOffset, 超过IDLE_TIMEOUT_MILLIS仍无进展则失败
+     */
+    private Map<String, String> replayQueues(JobRegistry.Job job, ReplayRun run, DefaultLitePullConsumer consumer,
+                                             DefaultMQProducer producer, List<String> pending) throws Exception {
+        Set<String> tags = parseTags(run.request.tagFilter());
+        Map<String, String> failedQueues = new TreeMap<>();
+        Map<String, Long> lastProgress = new HashMap<>();
+        pending.forEach(queueKey -> lastProgress.put(queueKey, System.currentTimeMillis()));
+        long lastIdleCheck = System.currentTimeMillis();
+        while (!lastProgress.isEmpty()) {
+            Map<String, List<MessageExt>> byQueue = new LinkedHashMap<>();
+            for (MessageExt msg : consumer.poll(POLL_TIMEOUT_MILLIS)) {
+                byQueue.computeIfAbsent(msg.getBrokerName() + "/" + msg.getQueueId(), key -> new ArrayList<>()).add(msg);
+            }
+            for (Map.Entry<String, List<MessageExt>> entry : byQueue.entrySet()) {
+                String queueKey = entry.getKey();
+                if (!lastProgress.containsKey(queueKey)) {
+                    continue;
+                }
+                lastProgress.put(queueKey, System.currentTimeMillis());
+                try {
+                    replayBatch(job, run, producer, queueKey, entry.getValue(), tags);
+                } catch (Exception e) {
+                    failQueue(job, run, consumer, lastProgress, failedQueues, queueKey, ParallelUtil.errorMessage(e));
+                    continue;
+                }
+                completeIfDone(job, run, consumer, lastProgress, queueKey);
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - lastIdleCheck < IDLE_CHECK_INTERVAL_MILLIS) {
+                continue;
+            }
+            lastIdleCheck = now;
+            List<String> idle = lastProgress.entrySet().stream()
+                    .filter(entry -> now - entry.getValue() >= IDLE_CHECK_INTERVAL_MILLIS)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (idle.isEmpty()) {
+                continue;
+            }
+            skipMissingOffsets(job, run, idle);
+            for (String queueKey : idle) {
+                if (run.queues.get(queueKey).done()) {
+                    completeIfDone(job, run, consumer, lastProgress, queueKey);
+                } else if (now - lastProgress.get(queueKey) >= IDLE_TIMEOUT_MILLIS) {
+                    failQueue(job, run, consumer, lastProgress, failedQueues, queueKey, "no messages received at offset "
+                            + run.queues.get(queueKey).nextOffset() + " for " + IDLE_TIMEOUT_MILLIS + "ms");
+                }
+            }
+        }
+        return failedQueues;
+    }
+
+    /**
+     * 处理一个队列的一批消息, 发送成功后才推进进度; 位点不连续说明中间的消息已过期删除(消费者会自动跳到minOffset), 差值计为跳过
+     */
+    private void replayBatch(JobRegistry.Job job, ReplayRun run, DefaultMQProducer producer, String queueKey,
+                             List<MessageExt> messages, Set<String> tags) throws Exception {
+        ReplayRequest request = run.request;
+        QueueProgress progress = run.queues.get(queueKey);
+        long nextOffset = progress.nextOffset();
+        long missing = 0;
+        Map<String, List<Message>> byTarget = new LinkedHashMap<>();
+        for (MessageExt msg : messages) {
+            if (msg.getQueueOffset() < nextOffset) {
+                continue;
+            }
+            long offset = Math.min(progress.endOffset(), msg.getQueueOffset());
+            missing += offset - nextOffset;
+            nextOffset = offset;
+            if (offset >= progress.endOffset()) {
+                break;
+            }
+            nextOffset = offset + 1;
+            if (tags != null && !tags.contains(msg.getTags())) {
+                continue;
+            }
+            String target = StringUtils.isNotBlank(request.targetTopic()) ? request.targetTopic() : msg.getProperty(MessageConst.PROPERTY_RETRY_TOPIC);
+            if (StringUtils.isNotBlank(target)) {
+                byTarget.computeIfAbsent(target, key -> new ArrayList<>()).add(toReplayMessage(target, msg));
+            }
+        }
+        int sent = 0;
+        for (List<Message> targetMessages : byTarget.values()) {
+            for (int from = 0; from < targetMessages.size(); from += Math.max(1, request.batchSize())) {
+                List<Message> batch = targetMessages.subList(from, Math.min(targetMessages.size(), from + Math.max(1, request.batchSize())));
+                run.pacer.acquire(batch.size());
+                if (batch.size() == 1) {
+                    producer.send(batch.get(0));
+                } else {
+                    producer.send(batch);
+                }
+                sent += batch.size();
+            }
+        }
+        if (missing > 0) {
+            job.event("queue " + queueKey + ": " + missing + " messages between offsets " + progress.nextOffset() + " and " + nextOffset
+                    + " no longer exist, skipped");
+        }
+        // 范围内未发送的消息(被tag过滤、没有目标主题或已删除)都计为跳过
+        run.advance(queueKey, nextOffset, sent, Math.max(0, nextOffset - progress.nextOffset() - sent));
+    }
+
+    /**
+     * 按broker当前的位点范围核对队列进度: minOffset大于进度时中间的消息已过期删除, maxOffset不大于进度时队列已没有更多消息(例如过期删除后maxOffset回退),
+     * 两种情况都把缺失的位点计为跳过; 用于定位消费者之前和长时间没有收到消息的队列, 查询失败时记录事件并返回false
+     */
+    private boolean skipMissingOffsets(JobRegistry.Job job, ReplayRun run, List<String> queueKeys) throws IOException {
+        ReplayRequest request = run.request;
+        ApiResponse<Map<MessageQueue, TopicOffset>> response = AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                return admin.examineTopicStats(request.sourceTopic()).getOffsetTable();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, request.ak(), request.sk(), request.nameserverAddressList());
+        if (response.getErrorCode() != 0) {
+            job.event("failed to check offsets of queues " + queueKeys + ": " + response.getErrorMessage());
+            return false;
+        }
+        for (String queueKey : queueKeys) {
+            QueueProgress progress = run.queues.get(queueKey);
+            TopicOffset topicOffset = response.getData().get(messageQueue(request, progress));
+            if (topicOffset == null) {
+                continue;
+            }
+            long nextOffset = topicOffset.getMaxOffset() <= progress.nextOffset() ? progress.endOffset()
+                    : Math.min(progress.endOffset(), topicOffset.getMinOffset());
+            if (nextOffset > progress.nextOffset()) {
+                job.event("queue " + queueKey + ": offsets [" + progress.nextOffset() + ", " + nextOffset + ") no longer exist (min "
+                        + topicOffset.getMinOffset() + ", max " + topicOffset.getMaxOffset() + "), skipped");
+                run.advance(queueKey, nextOffset, 0, nextOffset - progress.nextOffset());
+            }
+        }
+        return true;
+    }
+
+    private static void completeIfDone(JobRegistry.Job job, ReplayRun run, DefaultLitePullConsumer consumer,
+                                       Map<String, Long> lastProgress, String queueKey) {
+        QueueProgress progress = run.queues.get(queueKey);
+        if (progress.done()) {
+            consumer.pause(List.of(messageQueue(run.request, progress)));
+            lastProgress.remove(queueKey);
+            job.stepSucceeded("queue " + queueKey + " done");
+        }
+    }
+
+    private static void failQueue(JobRegistry.Job job, ReplayRun run, DefaultLitePullConsumer consumer, Map<String, Long> lastProgress,
+                                  Map<String, String> failedQueues, String queueKey, String error) {
+        consumer.pause(List.of(messageQueue(run.request, run.queues.get(queueKey))));
+        lastProgress.remove(queueKey);
+        failedQueues.put(queueKey, error);
+        job.stepFailed("queue " + queueKey + ": " + error);
+    }
+
+    /**
+     * tag过滤表达式 TagA||TagB 解析为tag集合, 为空或*时返回null表示不过滤
+     */
+    private static Set<String> parseTags(String tagFilter) {
+        if (StringUtils.isBlank(tagFilter) || "*".equals(tagFilter.trim())) {
+            return null;
+        }
+        Set<String> tags = new HashSet<>();
+        for (String tag : tagFilter.split("\\|\\|")) {
+            if (StringUtils.isNotBlank(tag)) {
+                tags.add(tag.trim());
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * 复制消息体、tag、key和用户属性, 并记录原始消息id
+     */
+    private static Message toReplayMessage(String target, MessageExt source) {
+        Message message = new Message(target, source.getTags(), source.getKeys(), source.getBody());
+        if (source.getProperties() != null) {
+            source.getProperties().forEach((name, value) -> {
+                if (!MessageConst.STRING_HASH_SET.contains(name)) {
+                    message.putUserProperty(name, value);
+                }
+            });
+        }
+        message.putUserProperty(MessageConst.PROPERTY_ORIGIN_MESSAGE_ID, source.getMsgId());
+        return message;
+    }
+
+    /**
+     * 不提交消费位点, 只分配未完成的队列并定位到断点位置; tag在客户端过滤, 被过滤的消息同样推进进度
+     */
+    private DefaultLitePullConsumer createConsumer(ReplayRun run, List<String> pending) throws Exception {
+        ReplayRequest request = run.request;
+        DefaultLitePullConsumer consumer = new DefaultLitePullConsumer(CONSUMER_GROUP,
+                AdminUtil.getRpcHook(AdminUtil.resolveAk(request.ak()), AdminUtil.resolveSk(request.sk())));
+        consumer.setNamesrvAddr(AdminUtil.resolveNameserver(request.nameserverAddressList()));
+        consumer.setInstanceName("mcp-replay-" + run.replayId);
+        consumer.setAutoCommit(false);
+        consumer.setPullBatchSize(PULL_BATCH_SIZE);
+        consumer.start();
+        try {
+            List<MessageQueue> queues = pending.stream().map(queueKey -> messageQueue(request, run.queues.get(queueKey))).toList();
+            consumer.assign(queues);
+            for (MessageQueue mq : queues) {
+                consumer.seek(mq, run.queues.get(queueKey(mq)).nextOffset());
+            }
+        } catch (Exception e) {
+            consumer.shutdown();
+            throw e;
+        }
+        return consumer;
+    }
+
+    private static MessageQueue messageQueue(ReplayRequest request, QueueProgress progress) {
+        return new MessageQueue(request.sourceTopic(), progress.brokerName(), progress.queueId());
+    }
+
+    private static String queueKey(MessageQueue mq) {
+        return mq.getBrokerName() + "/" + mq.getQueueId();
+    }
+
+    private Path checkpointFile(String replayId) {
+        return Paths.get(mcpConfig.getReplayCheckpointDir(), replayId + ".json");
+    }
+
+    /**
+     * 先写临时文件再原子替换, 避免中断时留下不完整的断点
+     */
+    private void writeCheckpoint(ReplayCheckpoint checkpoint) throws IOException {
+        Path file = checkpointFile(checkpoint.replayId());
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, JSON.toJSONString(checkpoint), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,196 @@
+package org.apache.rocketmq.mcp.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.mcp.tool.Broker;
+import org.apache.rocketmq.remoting.protocol.DataVersion;
+import org.apache.rocketmq.remoting.protocol.body.SubscriptionGroupWrapper;
+import org.apache.rocketmq.remoting.protocol.subscription.SubscriptionGroupConfig;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订阅组目录缓存
+ * 按master缓存订阅组配置, 刷新时比较每个broker返回的DataVersion,
+ * 版本未变化的broker直接复用已有快照, 版本变化的broker才重新计算差异并写入变更记录
+ */
+@Component
+public class SubscriptionGroupCatalog {
+    private static final long FETCH_TIMEOUT_MILLIS = 30000;
+
+    private final ConcurrentMap<String, ClusterGroups> clusters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public record GroupChange(long sequence, long timestamp, String brokerAddr, String group, ChangeType type,
+                              SubscriptionGroupConfig config) {
+    }
+
+    public record RefreshResult(long refreshTimestamp, List<String> changedBrokers, List<String> unchangedBrokers,
+                                List<String> baselineBrokers, Map<String, String> failedBrokers) {
+    }
+
+    public record ChangeSet(long currentSequence, boolean truncated, RefreshResult lastRefresh,
+                            List<GroupChange> changes) {
+    }
+
+    private record BrokerGroups(DataVersion dataVersion, Map<String, SubscriptionGroupConfig> groups) {
+    }
+
+    private static class ClusterGroups {
+        private final Map<String, BrokerGroups> brokers = new HashMap<>();
+        private final Deque<GroupChange> changeLog = new ArrayDeque<>();
+        private long sequence;
+        private volatile long lastRefreshTimestamp;
+        private RefreshResult lastRefresh;
+    }
+
+    public boolean isStale(String clusterKey) {
+        ClusterGroups cluster = clusters.get(clusterKey);
+        return cluster == null || System.currentTimeMillis() - cluster.lastRefreshTimestamp >= mcpConfig.getCatalogRefreshIntervalMillis();
+    }
+
+    /**
+     * 让下一次读取强制刷新, 写操作之后调用
+     */
+    public void invalidate(String clusterKey) {
+        ClusterGroups cluster = clusters.get(clusterKey);
+        if (cluster != null) {
+            cluster.lastRefreshTimestamp = 0;
+        }
+    }
+
+    /**
+     * 刷新集群的订阅组目录, 未过期且非强制时直接返回上一次的刷新结果
+     */
+    public RefreshResult refresh(String clusterKey, DefaultMQAdminExt admin, boolean force) throws Exception {
+        ClusterGroups cluster = clusters.computeIfAbsent(clusterKey, key -> new ClusterGroups());
+        synchronized (cluster) {
+            if (!force && cluster.lastRefresh != null && !isStale(clusterKey)) {
+                return cluster.lastRefresh;
+            }
+
+            long now = System.currentTimeMillis();
+            List<String> masters = Broker.getMasterAddresses(admin, null);
+            Map<String, ApiResponse<SubscriptionGroupWrapper>> fetched = ParallelUtil.invokeAll(masters,
+                    brokerAddr -> admin.getAllSubscriptionGroup(brokerAddr, FETCH_TIMEOUT_MILLIS));
+
+            List<String> changedBrokers = new ArrayList<>();
+            List<String> unchangedBrokers = new ArrayList<>();
+            List<String> baselineBrokers = new ArrayList<>();
+            Map<String, String> failedBrokers = new LinkedHashMap<>(ParallelUtil.errorMessages(fetched));
+            ParallelUtil.successData(fetched).forEach((brokerAddr, wrapper) -> {
+                BrokerGroups previous = cluster.brokers.get(brokerAddr);
+                DataVersion dataVersion = wrapper.getDataVersion();
+                if (previous != null && dataVersion != null && Objects.equals(previous.dataVersion(), dataVersion)) {
+                    unchangedBrokers.add(brokerAddr);
+                    return;
+                }
+
+                Map<String, SubscriptionGroupConfig> groups = wrapper.getSubscriptionGroupTable() == null
+                        ? new HashMap<>() : new HashMap<>(wrapper.getSubscriptionGroupTable());
+                if (previous == null) {
+                    // broker第一次加载的数据作为基线, 不产生变更记录
+                    baselineBrokers.add(brokerAddr);
+                } else {
+                    diff(cluster, brokerAddr, previous.groups(), groups, now);
+                    changedBrokers.add(brokerAddr);
+                }
+                cluster.brokers.put(brokerAddr, new BrokerGroups(dataVersion, groups));
+            });
+
+            // 已经不在集群中的broker, 其订阅组全部记为删除
+            for (String brokerAddr : new ArrayList<>(cluster.brokers.keySet())) {
+                if (!masters.contains(brokerAddr)) {
+                    diff(cluster, brokerAddr, cluster.brokers.remove(brokerAddr).groups(), Collections.emptyMap(), now);
+                    changedBrokers.add(brokerAddr);
+                }
+            }
+
+            cluster.lastRefresh = new RefreshResult(now, changedBrokers, unchangedBrokers, baselineBrokers, failedBrokers);
+            cluster.lastRefreshTimestamp = now;
+            return cluster.lastRefresh;
+        }
+    }
+
+    /**
+     * 返回序号大于sinceSequence的变更
+     * 如果中间的变更已经被淘汰或服务重启过, truncated为true, 调用方应重新全量获取
+     */
+    public ChangeSet changesSince(String clusterKey, long sinceSequence) {
+        ClusterGroups cluster = clusters.get(clusterKey);
+        if (cluster == null) {
+            return new ChangeSet(0, sinceSequence > 0, null, Collections.emptyList());
+        }
+        synchronized (cluster) {
+            List<GroupChange> changes = new ArrayList<>();
+            for (GroupChange change : cluster.changeLog) {
+                if (change.sequence() > sinceSequence) {
+                    changes.add(change);
+                }
+            }
+            long oldestSequence = cluster.changeLog.isEmpty() ? cluster.sequence + 1 : cluster.changeLog.peekFirst().sequence();
+            boolean truncated = sinceSequence + 1 < oldestSequence || sinceSequence > cluster.sequence;
+            return new ChangeSet(cluster.sequence, truncated, cluster.lastRefresh, changes);
+        }
+    }
+
+    /**
+     * 当前缓存的订阅组: brokerAddr -> (group -> config)
+     */
+    public Map<String, Map<String, SubscriptionGroupConfig>> getGroups(String clusterKey) {
+        Map<String, Map<String, SubscriptionGroupConfig>> result = new LinkedHashMap<>();
+        ClusterGroups cluster = clusters.get(clusterKey);
+        if (cluster != null) {
+            synchronized (cluster) {
+                cluster.brokers.forEach((brokerAddr, brokerGroups) -> result.put(brokerAddr, Collections.unmodifiableMap(brokerGroups.groups())));
+            }
+        }
+        return result;
+    }
+
+    private void diff(ClusterGroups cluster, String brokerAddr, Map<String, SubscriptionGroupConfig> before,
+                      Map<String, SubscriptionGroupConfig> after, long timestamp) {
+        after.forEach((group, config) -> {
+            SubscriptionGroupConfig previous = before.get(group);
+            if (previous == null) {
+                append(cluster, brokerAddr, group, ChangeType.CREATED, config, timestamp);
+            } else if (!previous.equals(config)) {
+                append(cluster, brokerAddr, group, ChangeType.UPDATED, config, timestamp);
+            }
+        });
+        before.forEach((group, config) -> {
+            if (!after.containsKey(group)) {
+                append(cluster, brokerAddr, group, ChangeType.DELETED, config, timestamp);
+            }
+        });
+    }
+
+    private void append(ClusterGroups cluster, String brokerAddr, String group, ChangeType type,
+                        SubscriptionGroupConfig config, long timestamp) {
+        cluster.changeLog.addLast(new GroupChange(++cluster.sequence, timestamp, brokerAddr, group, type, config));
+        while (cluster.changeLog.size() > Math.max(0, mcpConfig.getCatalogChangeLogSize())) {
+            cluster.changeLog.removeFirst();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.apache.rocketmq.mcp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.mcp.tool.Broker;
+import org.apache.rocketmq.remoting.protocol.DataVersion;
+import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 主题目录缓存
+ * 按master缓存主题配置快照, 只有DataVersion变化的broker才会触发索引重建,
+ * 索引构建完成后整体替换, 查询时无锁, 直接在内存中按名称/前缀/集群/权限/队列数检索
+ */
+@Component
+public class TopicCatalog {
+    private static final long FETCH_TIMEOUT_MILLIS = 30000;
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final ConcurrentMap<String, ClusterTopics> clusters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    /**
+     * 主题在整个集群中的汇总信息, brokers为 brokerName -> 该broker上的主题配置
+     */
+    public record TopicEntry(String topicName, Set<String> clusters, Set<Integer> perms, int totalReadQueueNums,
+                             int totalWriteQueueNums, Map<String, TopicConfig> brokers) {
+    }
+
+    public record SearchResult(long catalogTimestamp, int totalMatched, List<TopicEntry> topics,
+                               Map<String, String> failedBrokers) {
+    }
+
+    private record BrokerTopics(String brokerName, String clusterName, DataVersion dataVersion,
+                                Map<String, TopicConfig> topics) {
+    }
+
+    private record TopicIndex(NavigableMap<String, TopicEntry> byName, Map<String, Set<String>> byCluster,
+                              Map<Integer, Set<String>> byPerm, NavigableMap<Integer, Set<String>> byQueueNums,
+                              long buildTimestamp) {
+    }
+
+    private static class ClusterTopics {
+        private final Map<String, BrokerTopics> brokers = new HashMap<>();
+        private volatile TopicIndex index;
+        private volatile long lastRefreshTimestamp;
+        private volatile Map<String, String> failedBrokers = Collections.emptyMap();
+    }
+
+    public boolean isStale(String clusterKey) {
+        ClusterTopics cluster = clusters.get(clusterKey);
+        return cluster == null || cluster.index == null
+                || System.currentTimeMillis() - cluster.lastRefreshTimestamp >= mcpConfig.getCatalogRefreshIntervalMillis();
+    }
+
+    /**
+     * 让下一次读取强制刷新, 写操作之后调用
+     */
+    public void invalidate(String clusterKey) {
+        ClusterTopics cluster = clusters.get(clusterKey);
+        if (cluster != null) {
+            cluster.lastRefreshTimestamp = 0;
+        }
+    }
+
+    /**
+     * 刷新集群的主题目录, 各master并发拉取, 所有broker的DataVersion都未变化时不重建索引
+     */
+    public void refresh(String clusterKey, DefaultMQAdminExt admin, boolean force) throws Exception {
+        ClusterTopics cluster = clusters.computeIfAbsent(clusterKey, key -> new ClusterTopics());
+        synchronized (cluster) {
+            if (!force && !isStale(clusterKey)) {
+                return;
+            }
+
+            ClusterInfo clusterInfo = admin.examineBrokerClusterInfo();
+            Map<String, BrokerData> masters = new LinkedHashMap<>();
+            for (BrokerData brokerData : Broker.getBrokerDatas(clusterInfo, null)) {
+                String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                if (masterAddr != null) {
+                    masters.put(masterAddr, brokerData);
+                }
+            }
+            Map<String, ApiResponse<TopicConfigSerializeWrapper>> fetched = ParallelUtil.invokeAll(masters.keySet(),
+                    brokerAddr -> admin.getUserTopicConfig(brokerAddr, true, FETCH_TIMEOUT_MILLIS));
+
+            boolean changed = cluster.brokers.keySet().removeIf(brokerAddr -> !masters.containsKey(brokerAddr));
+            for (Map.Entry<String, TopicConfigSerializeWrapper> entry : ParallelUtil.successData(fetched).entrySet()) {
+                String brokerAddr = entry.getKey();
+                TopicConfigSerializeWrapper wrapper = entry.getValue();
+                BrokerTopics previous = cluster.brokers.get(brokerAddr);
+                if (previous != null && wrapper.getDataVersion() != null && Objects.equals(previous.dataVersion(), wrapper.getDataVersion())) {
+                    continue;
+                }
+                BrokerData brokerData = masters.get(brokerAddr);
+                Map<String, TopicConfig> topics = wrapper.getTopicConfigTable() == null ? new HashMap<>() : new HashMap<>(wrapper.getTopicConfigTable());
+                cluster.brokers.put(brokerAddr, new BrokerTopics(brokerData.getBrokerName(), brokerData.getCluster(), wrapper.getDataVersion(), topics));
+                changed = true;
+            }
+
+            if (changed || cluster.index == null) {
+                cluster.index = buildIndex(cluster.brokers.values());
+            }
+            cluster.failedBrokers = ParallelUtil.errorMessages(fetched);
+            cluster.lastRefreshTimestamp = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 在内存索引中检索主题, 所有条件均为可选, 多个条件取交集
+     */
+    public SearchResult search(String clusterKey, String topic, String topicPrefix, String clusterName, Integer perm,
+                               Integer minQueueNums, Integer maxQueueNums, Integer limit) {
+        ClusterTopics cluster = clusters.get(clusterKey);
+        TopicIndex index = cluster == null ? null : cluster.index;
+        if (index == null) {
+            return new SearchResult(0, 0, Collections.emptyList(), Collections.emptyMap());
+        }
+
+        Collection<String> candidates;
+        if (StringUtils.isNotBlank(topic)) {
+            candidates = index.byName().containsKey(topic) ? List.of(topic) : Collections.emptyList();
+        } else if (StringUtils.isNotBlank(clusterName)) {
+            candidates = index.byCluster().getOrDefault(clusterName, Collections.emptySet());
+        } else if (perm != null) {
+            candidates = index.byPerm().getOrDefault(perm, Collections.emptySet());
+        } else if (StringUtils.isNotBlank(topicPrefix)) {
+            candidates = index.byName().subMap(topicPrefix, true, topicPrefix + Character.MAX_VALUE, true).keySet();
+        } else if (minQueueNums != null || maxQueueNums != null) {
+            candidates = new TreeSet<>();
+            index.byQueueNums().subMap(minQueueNums == null ? Integer.MIN_VALUE : minQueueNums, true,
+                    maxQueueNums == null ? Integer.MAX_VALUE : maxQueueNums, true).values().forEach(candidates::addAll);
+        } else {
+            candidates = index.byName().keySet();
+        }
+
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+        List<TopicEntry> topics = new ArrayList<>();
+        int totalMatched = 0;
+        for (String candidate : candidates) {
+            TopicEntry entry = index.byName().get(candidate);
+            if (entry == null
+                    || StringUtils.isNotBlank(topicPrefix) && !candidate.startsWith(topicPrefix)
+                    || StringUtils.isNotBlank(clusterName) && !entry.clusters().contains(clusterName)
+                    || perm != null && !entry.perms().contains(perm)
+                    || minQueueNums != null && entry.totalWriteQueueNums() < minQueueNums
+                    || maxQueueNums != null && entry.totalWriteQueueNums() > maxQueueNums) {
+                continue;
+            }
+            totalMatched++;
+            if (topics.size() < max) {
+                topics.add(entry);
+            }
+        }
+        return new SearchResult(index.buildTimestamp(), totalMatched, topics, cluster.failedBrokers);
+    }
+
+    private TopicIndex buildIndex(Collection<BrokerTopics> brokers) {
+        Map<String, List<BrokerTopics>> topicBrokers = new HashMap<>();
+        for (BrokerTopics brokerTopics : brokers) {
+            for (String topic : brokerTopics.topics().keySet()) {
+                topicBrokers.computeIfAbsent(topic, key -> new ArrayList<>()).add(brokerTopics);
+            }
+        }
+
+        NavigableMap<String, TopicEntry> byName = new TreeMap<>();
+        Map<String, Set<String>> byCluster = new HashMap<>();
+        Map<Integer, Set<String>> byPerm = new HashMap<>();
+        NavigableMap<Integer, Set<String>> byQueueNums = new TreeMap<>();
+        topicBrokers.forEach((topic, owners) -> {
+            Set<String> topicClusters = new TreeSet<>();
+            Set<Integer> perms = new TreeSet<>();
+            Map<String, TopicConfig> configs = new TreeMap<>();
+            int readQueueNums = 0;
+            int writeQueueNums = 0;
+            for (BrokerTopics owner : owners) {
+                TopicConfig config = owner.topics().get(topic);
+                if (owner.clusterName() != null) {
+                    topicClusters.add(owner.clusterName());
+                }
+                perms.add(config.getPerm());
+                configs.put(owner.brokerName(), config);
+                readQueueNums += config.getReadQueueNums();
+                writeQueueNums += config.getWriteQueueNums();
+            }
+            byName.put(topic, new TopicEntry(topic, topicClusters, perms, readQueueNums, writeQueueNums, configs));
+            topicClusters.forEach(clusterName -> byCluster.computeIfAbsent(clusterName, key -> new TreeSet<>()).add(topic));
+            perms.forEach(perm -> byPerm.computeIfAbsent(perm, key -> new TreeSet<>()).add(topic));
+            byQueueNums.computeIfAbsent(writeQueueNums, key -> new TreeSet<>()).add(topic);
+        });
+        return new TopicIndex(byName, byCluster, byPerm, byQueueNums, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,219 @@
+package org.apache.rocketmq.mcp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.common.topic.TopicValidator;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.remoting.protocol.admin.TopicOffset;
+import org.apache.rocketmq.remoting.protocol.admin.TopicStatsTable;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 热点主题/热点队列采集器
+ * 按限速并发获取所有业务主题的examineTopicStats, 每个主题只保留队列的maxOffset数组作为快照;
+ * 两次快照的位点差除以时间差得到每个队列的写入TPS. 每个集群保留最近一次快照作为下一次采集的基线,
+ * 基线不存在或超过mcp.topicHotspotBaselineMaxAgeMillis时, 间隔intervalMillis连续采集两次
+ */
+@Component
+public class TopicHotspotCollector {
+
+    private static final int MAX_BASELINES = 64;
+    private static final int MAX_LISTED_FAILURES = 50;
+    private static final double WRITE_SKEW_FACTOR = 3;
+    private static final double WRITE_SKEW_MIN_TPS = 100;
+
+    private Cache<String, ClusterSnapshot> baselines;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    public record HotTopic(String topic, double tps, int queues, double maxQueueTps, double writeSkew) {
+    }
+
+    public record HotQueue(String topic, int queueId, double tps) {
+    }
+
+    /**
+     * topQueues: brokerName -> 该broker上TPS最高的队列; brokerTps: brokerName -> 该broker所有队列的TPS之和;
+     * writeSkew: 主题内最大队列TPS与平均队列TPS之比
+     */
+    public record HotspotReport(long baselineTimestamp, long sampleTimestamp, int topics, double totalTps,
+                                List<HotTopic> topTopics, Map<String, List<HotQueue>> topQueues, Map<String, Double> brokerTps,
+                                List<String> findings, int failedTopics, Map<String, String> failures) {
+    }
+
+    /**
+     * 单个主题的快照, 队列按 brokerName, queueId 排序, 三个数组一一对应
+     */
+    private record TopicSnapshot(long timestamp, String[] brokerNames, int[] queueIds, long[] maxOffsets) {
+    }
+
+    private record ClusterSnapshot(long timestamp, Map<String, TopicSnapshot> topics, Map<String, String> failures) {
+    }
+
+    @PostConstruct
+    public void init() {
+        baselines = Caffeine.newBuilder()
+                .maximumSize(MAX_BASELINES)
+                .expireAfterWrite(Duration.ofMillis(Math.max(0, mcpConfig.getTopicHotspotBaselineMaxAgeMillis())))
+                .build();
+    }
+
+    public HotspotReport collect(String clusterKey, DefaultMQAdminExt admin, long intervalMillis, int topK,
+                                 boolean resetBaseline) throws Exception {
+        List<String> topics = admin.fetchAllTopicList().getTopicList().stream()
+                .filter(topic -> !TopicValidator.isSystemTopic(topic) && !topic.startsWith(MixAll.RETRY_GROUP_TOPIC_PREFIX)
+                        && !topic.startsWith(MixAll.DLQ_GROUP_TOPIC_PREFIX))
+                .sorted()
+                .toList();
+        ClusterSnapshot baseline = resetBaseline ? null : baselines.getIfPresent(clusterKey);
+        if (baseline == null) {
+            baseline = snapshot(admin, topics);
+            Thread.sleep(intervalMillis);
+        }
+        ClusterSnapshot current = snapshot(admin, topics);
+        baselines.put(clusterKey, current);
+        return compare(baseline, current, topK);
+    }
+
+    /**
+     * 所有主题共享一个限速器, 每次examineTopicStats前按mcp.topicHotspotMaxStatsPerSecond预约一个时间片
+     */
+    private ClusterSnapshot snapshot(DefaultMQAdminExt admin, List<String> topics) {
+        int maxPerSecond = mcpConfig.getTopicHotspotMaxStatsPerSecond();
+        long intervalNanos = maxPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / maxPerSecond;
+        AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+        long timeoutMillis = ParallelUtil.DEFAULT_TIMEOUT_MILLIS + TimeUnit.NANOSECONDS.toMillis(intervalNanos * topics.size());
+        Map<String, ApiResponse<TopicSnapshot>> results = ParallelUtil.invokeAll(topics, topic -> {
+            if (intervalNanos > 0) {
+                long slot = nextSlot.getAndAdd(intervalNanos);
+                long waitNanos = slot - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            return toSnapshot(admin.examineTopicStats(topic));
+        }, ParallelUtil.DEFAULT_PARALLELISM, timeoutMillis);
+        return new ClusterSnapshot(System.currentTimeMillis(), ParallelUtil.successData(results), ParallelUtil.errorMessages(results));
+    }
+
+    private static TopicSnapshot toSnapshot(TopicStatsTable stats) {
+        List<Map.Entry<MessageQueue, TopicOffset>> entries = new ArrayList<>(stats.getOffsetTable().entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+        int size = entries.size();
+        String[] brokerNames = new String[size];
+        int[] queueIds = new int[size];
+        long[] maxOffsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            brokerNames[i] = entries.get(i).getKey().getBrokerName();
+            queueIds[i] = entries.get(i).getKey().getQueueId();
+            maxOffsets[i] = entries.get(i).getValue().getMaxOffset();
+        }
+        return new TopicSnapshot(System.currentTimeMillis(), brokerNames, queueIds, maxOffsets);
+    }
+
+    private static HotspotReport compare(ClusterSnapshot baseline, ClusterSnapshot current, int topK) {
+        PriorityQueue<HotTopic> topTopics = new PriorityQueue<>(Comparator.comparingDouble(HotTopic::tps));
+        Map<String, PriorityQueue<HotQueue>> topQueues = new HashMap<>();
+        Map<String, Double> brokerTps = new TreeMap<>();
+        List<String> findings = new ArrayList<>();
+        double totalTps = 0;
+        for (Map.Entry<String, TopicSnapshot> entry : current.topics().entrySet()) {
+            TopicSnapshot before = baseline.topics().get(entry.getKey());
+            TopicSnapshot after = entry.getValue();
+            if (before == null || after.timestamp() <= before.timestamp()) {
+                continue;
+            }
+            double seconds = (after.timestamp() - before.timestamp()) / 1000.0;
+            double[] tps = queueTps(before, after, seconds);
+            double topicTps = 0;
+            double maxQueueTps = 0;
+            for (int i = 0; i < tps.length; i++) {
+                if (tps[i] <= 0) {
+                    continue;
+                }
+                topicTps += tps[i];
+                maxQueueTps = Math.max(maxQueueTps, tps[i]);
+                brokerTps.merge(after.brokerNames()[i], tps[i], Double::sum);
+                offer(topQueues.computeIfAbsent(after.brokerNames()[i], key -> new PriorityQueue<>(Comparator.comparingDouble(HotQueue::tps))),
+                        new HotQueue(entry.getKey(), after.queueIds()[i], tps[i]), topK, Comparator.comparingDouble(HotQueue::tps));
+            }
+            totalTps += topicTps;
+            double writeSkew = topicTps == 0 ? 0 : maxQueueTps / (topicTps / tps.length);
+            if (topicTps >= WRITE_SKEW_MIN_TPS && writeSkew >= WRITE_SKEW_FACTOR) {
+                findings.add(String.format("write skew on topic %s: hottest queue %.1f tps is %.1fx the average of %d queues",
+                        entry.getKey(), maxQueueTps, writeSkew, tps.length));
+            }
+            offer(topTopics, new HotTopic(entry.getKey(), topicTps, tps.length, maxQueueTps, writeSkew), topK,
+                    Comparator.comparingDouble(HotTopic::tps));
+        }
+        if (brokerTps.size() > 1 && totalTps > 0) {
+            double average = totalTps / brokerTps.size();
+            brokerTps.forEach((brokerName, tps) -> {
+                if (tps >= WRITE_SKEW_MIN_TPS && tps >= WRITE_SKEW_FACTOR * average) {
+                    findings.add(String.format("write skew on broker %s: %.1f tps is %.1fx the broker average", brokerName, tps, tps / average));
+                }
+            });
+        }
+
+        Map<String, List<HotQueue>> sortedQueues = new TreeMap<>();
+        topQueues.forEach((brokerName, queue) -> sortedQueues.put(brokerName,
+                queue.stream().sorted(Comparator.comparingDouble(HotQueue::tps).reversed()).toList()));
+        Map<String, String> failures = new TreeMap<>();
+        current.failures().entrySet().stream().limit(MAX_LISTED_FAILURES).forEach(entry -> failures.put(entry.getKey(), entry.getValue()));
+        return new HotspotReport(baseline.timestamp(), current.timestamp(), current.topics().size(), totalTps,
+                topTopics.stream().sorted(Comparator.comparingDouble(HotTopic::tps).reversed()).toList(), sortedQueues, brokerTps,
+                findings, current.failures().size(), failures);
+    }
+
+    /**
+     * 两个快照的队列都已排序, 按 brokerName, queueId 归并对齐; 基线中不存在的队列(新扩容)和位点回退的队列记为0
+     */
+    private static double[] queueTps(TopicSnapshot before, TopicSnapshot after, double seconds) {
+        double[] tps = new double[after.queueIds().length];
+        int j = 0;
+        for (int i = 0; i < tps.length; i++) {
+            while (j < before.queueIds().length && compareQueue(before, j, after, i) < 0) {
+                j++;
+            }
+            if (j < before.queueIds().length && compareQueue(before, j, after, i) == 0) {
+                tps[i] = Math.max(0, after.maxOffsets()[i] - before.maxOffsets()[j]) / seconds;
+            }
+        }
+        return tps;
+    }
+
+    private static int compareQueue(TopicSnapshot a, int i, TopicSnapshot b, int j) {
+        int result = a.brokerNames()[i].compareTo(b.brokerNames()[j]);
+        return result != 0 ? result : Integer.compare(a.queueIds()[i], b.queueIds()[j]);
+    }
+
+    /**
+     * 小顶堆只保留最大的topK个元素
+     */
+    private static <T> void offer(PriorityQueue<T> heap, T value, int topK, Comparator<T> comparator) {
+        if (heap.size() < topK) {
+            heap.add(value);
+        } else if (comparator.compare(value, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(value);
+        }
+    }
+}
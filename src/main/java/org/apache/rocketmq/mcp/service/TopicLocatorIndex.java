@@ -0,0 +1,209 @@
+package org.apache.rocketmq.mcp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 跨集群的主题定位索引
+ * 定期对每个联邦集群(mcp.clusters.*)执行fetchAllTopicList和fetchTopicsByCLuster, 构建 主题 -> 集群/broker组 的只读索引;
+ * 主题名排序后存放在数组中(名称已intern), 位置信息以CSR形式存放(offsets + locationIds),
+ * 精确查询和前缀查询都是数组上的二分查找, 无需访问nameserver
+ */
+@Component
+public class TopicLocatorIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicLocatorIndex.class);
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final ConcurrentMap<String, ProfileSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> failedProfiles = new ConcurrentHashMap<>();
+    private volatile Index index = Index.EMPTY;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    /**
+     * profile: 联邦集群别名; clusterName: RocketMQ集群名, 主题不属于任何集群时为null; brokerNames: 该集群下的broker组
+     */
+    public record Location(String profile, String clusterName, List<String> brokerNames) {
+    }
+
+    public record LocateResult(long indexTimestamp, int totalMatched, Map<String, List<Location>> topics,
+                               Map<String, String> failedProfiles) {
+    }
+
+    /**
+     * 单个联邦集群的快照: 主题 -> 位置
+     */
+    private record ProfileSnapshot(Map<String, List<Location>> topics) {
+    }
+
+    /**
+     * topics按字典序排列, 第i个主题的位置为 locations[locationIds[offsets[i]] .. locations[locationIds[offsets[i + 1] - 1]]]
+     */
+    private record Index(String[] topics, int[] offsets, int[] locationIds, Location[] locations, long buildTimestamp) {
+        private static final Index EMPTY = new Index(new String[0], new int[] {0}, new int[0], new Location[0], 0);
+
+        private List<Location> locationsOf(int topicIndex) {
+            List<Location> result = new ArrayList<>(offsets[topicIndex + 1] - offsets[topicIndex]);
+            for (int i = offsets[topicIndex]; i < offsets[topicIndex + 1]; i++) {
+                result.add(locations[locationIds[i]]);
+            }
+            return result;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = mcpConfig.getTopicLocatorRefreshIntervalMillis();
+        if (mcpConfig.getClusters().isEmpty() || interval <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-topic-locator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Throwable e) {
+                logger.warn("刷新主题定位索引失败", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 并发刷新所有联邦集群的快照, 刷新失败的集群保留上一次的快照, 然后整体重建索引
+     */
+    public synchronized void refresh() {
+        Map<String, McpConfig.ClusterProfile> profiles = mcpConfig.getClusters();
+        Map<String, ApiResponse<ProfileSnapshot>> fetched = ParallelUtil.invokeAll(profiles.keySet(), name -> {
+            McpConfig.ClusterProfile profile = profiles.get(name);
+            ApiResponse<ProfileSnapshot> response = AdminUtil.callAdminWithResponse(admin -> {
+                try {
+                    return fetchSnapshot(name, admin);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, profile.getAk(), profile.getSk(), profile.getNameserverAddressList());
+            if (response.getErrorCode() != 0) {
+                throw new IllegalStateException(response.getErrorMessage());
+            }
+            return response.getData();
+        });
+        snapshots.keySet().retainAll(profiles.keySet());
+        snapshots.putAll(ParallelUtil.successData(fetched));
+        failedProfiles.clear();
+        failedProfiles.putAll(ParallelUtil.errorMessages(fetched));
+        index = buildIndex(snapshots.values());
+    }
+
+    /**
+     * 按主题名精确查找或按前缀查找
+     */
+    public LocateResult locate(String topic, String topicPrefix, Integer limit) {
+        Index current = index;
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : limit;
+        Map<String, List<Location>> result = new LinkedHashMap<>();
+        int totalMatched = 0;
+        if (StringUtils.isNotBlank(topic)) {
+            int position = Arrays.binarySearch(current.topics(), topic);
+            if (position >= 0) {
+                result.put(topic, current.locationsOf(position));
+                totalMatched = 1;
+            }
+        } else {
+            String prefix = StringUtils.defaultString(topicPrefix);
+            int position = Arrays.binarySearch(current.topics(), prefix);
+            for (int i = position >= 0 ? position : -position - 1; i < current.topics().length && current.topics()[i].startsWith(prefix); i++) {
+                totalMatched++;
+                if (result.size() < max) {
+                    result.put(current.topics()[i], current.locationsOf(i));
+                }
+            }
+        }
+        return new LocateResult(current.buildTimestamp(), totalMatched, result, new TreeMap<>(failedProfiles));
+    }
+
+    public boolean isEmpty() {
+        return index.topics().length == 0;
+    }
+
+    private ProfileSnapshot fetchSnapshot(String profile, DefaultMQAdminExt admin) throws Exception {
+        ClusterInfo clusterInfo = admin.examineBrokerClusterInfo();
+        Map<String, List<Location>> topics = new HashMap<>();
+        Map<String, Set<String>> clusterBrokers = clusterInfo.getClusterAddrTable() == null
+                ? Collections.emptyMap() : clusterInfo.getClusterAddrTable();
+        for (Map.Entry<String, Set<String>> entry : clusterBrokers.entrySet()) {
+            Location location = new Location(profile, entry.getKey(), new ArrayList<>(new TreeSet<>(entry.getValue())));
+            for (String topic : admin.fetchTopicsByCLuster(entry.getKey()).getTopicList()) {
+                topics.computeIfAbsent(topic, key -> new ArrayList<>()).add(location);
+            }
+        }
+        // 不属于任何集群的主题(例如只在nameserver上残留的路由)也记录下来, 集群名为null
+        Location unassigned = new Location(profile, null, Collections.emptyList());
+        for (String topic : admin.fetchAllTopicList().getTopicList()) {
+            topics.computeIfAbsent(topic, key -> new ArrayList<>(List.of(unassigned)));
+        }
+        return new ProfileSnapshot(topics);
+    }
+
+    private Index buildIndex(Iterable<ProfileSnapshot> profileSnapshots) {
+        Map<String, List<Location>> merged = new TreeMap<>();
+        for (ProfileSnapshot snapshot : profileSnapshots) {
+            snapshot.topics().forEach((topic, locations) -> merged.computeIfAbsent(topic.intern(), key -> new ArrayList<>()).addAll(locations));
+        }
+
+        Map<Location, Integer> locationIds = new LinkedHashMap<>();
+        String[] topics = new String[merged.size()];
+        int[] offsets = new int[merged.size() + 1];
+        int[] ids = new int[merged.values().stream().mapToInt(List::size).sum()];
+        int topicIndex = 0;
+        int cursor = 0;
+        for (Map.Entry<String, List<Location>> entry : merged.entrySet()) {
+            topics[topicIndex] = entry.getKey();
+            offsets[topicIndex] = cursor;
+            for (Location location : entry.getValue()) {
+                ids[cursor++] = locationIds.computeIfAbsent(location, key -> locationIds.size());
+            }
+            topicIndex++;
+        }
+        offsets[topicIndex] = cursor;
+        return new Index(topics, offsets, ids, locationIds.keySet().toArray(new Location[0]), System.currentTimeMillis());
+    }
+}
@@ -1,5 +1,10 @@
 package org.apache.rocketmq.mcp.spring;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,6 +13,106 @@ import org.springframework.context.annotation.Configuration;
 public class McpConfig {
     private boolean readOnly;
 
+    /**
+     * 目录缓存(订阅组等)的最短刷新间隔, 间隔内直接使用内存中的数据
+     */
+    private long catalogRefreshIntervalMillis = 10000;
+
+    /**
+     * 每个集群保留的目录变更记录条数
+     */
+    private int catalogChangeLogSize = 10000;
+
+    /**
+     * 是否合并只读工具的并发重复调用
+     */
+    private boolean coalesceReadOnlyTools = true;
+
+    /**
+     * 只读工具结果缓存的内存上限(按结果字符串估算的字节数)
+     */
+    private long toolCacheMaxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 只读工具结果缓存的TTL: 工具名 -> 毫秒, 未配置的工具不缓存
+     */
+    private Map<String, Long> toolCacheTtlMillis = new HashMap<>();
+
+    /**
+     * broker配置指纹缓存的有效期, 过期后重新拉取
+     */
+    private long brokerConfigCacheTtlMillis = 60000;
+
+    /**
+     * 联邦查询使用的集群配置: 集群别名 -> nameserver地址及凭证
+     */
+    private Map<String, ClusterProfile> clusters = new LinkedHashMap<>();
+
+    /**
+     * 跨集群主题定位索引的刷新间隔, 小于等于0表示不定期刷新
+     */
+    private long topicLocatorRefreshIntervalMillis = 60000;
+
+    /**
+     * 生产者池中最多保留的生产者数量(按集群和凭证区分)
+     */
+    private int producerPoolMaxSize = 16;
+
+    /**
+     * 生产者空闲超过该时间后关闭
+     */
+    private long producerPoolIdleMillis = 300000;
+
+    /**
+     * 消息重放的断点文件目录, 中断的重放按断点继续
+     */
+    private String replayCheckpointDir = System.getProperty("user.home") + "/.rocketmq-mcp/replay";
+
+    /**
+     * 消费者组快照(消费统计、连接、客户端运行信息)的缓存时间, 供同一个组的后续分析复用
+     */
+    private long groupSnapshotTtlMillis = 30000;
+
+    /**
+     * 热点主题采集时每秒最多调用examineTopicStats的次数, 小于等于0表示不限速
+     */
+    private int topicHotspotMaxStatsPerSecond = 50;
+
+    /**
+     * 热点主题采集基线的最长保留时间, 超过后重新连续采集两次快照
+     */
+    private long topicHotspotBaselineMaxAgeMillis = 600000;
+
+    public static class ClusterProfile {
+        private List<String> nameserverAddressList = new ArrayList<>();
+        private String ak;
+        private String sk;
+
+        public List<String> getNameserverAddressList() {
+            return nameserverAddressList;
+        }
+
+        public void setNameserverAddressList(List<String> nameserverAddressList) {
+            this.nameserverAddressList = nameserverAddressList;
+        }
+
+        public String getAk() {
+            return ak;
+        }
+
+        public void setAk(String ak) {
+            this.ak = ak;
+        }
+
+        public String getSk() {
+            return sk;
+        }
+
+        public void setSk(String sk) {
+            this.sk = sk;
+        }
+    }
+
     public boolean isReadOnly() {
         return readOnly;
     }
@@ -15,4 +120,116 @@ public class McpConfig {
     public void setReadOnly(boolean readOnly) {
         this.readOnly = readOnly;
     }
+
+    public long getCatalogRefreshIntervalMillis() {
+        return catalogRefreshIntervalMillis;
+    }
+
+    public void setCatalogRefreshIntervalMillis(long catalogRefreshIntervalMillis) {
+        this.catalogRefreshIntervalMillis = catalogRefreshIntervalMillis;
+    }
+
+    public int getCatalogChangeLogSize() {
+        return catalogChangeLogSize;
+    }
+
+    public void setCatalogChangeLogSize(int catalogChangeLogSize) {
+        this.catalogChangeLogSize = catalogChangeLogSize;
+    }
+
+    public boolean isCoalesceReadOnlyTools() {
+        return coalesceReadOnlyTools;
+    }
+
+    public void setCoalesceReadOnlyTools(boolean coalesceReadOnlyTools) {
+        this.coalesceReadOnlyTools = coalesceReadOnlyTools;
+    }
+
+    public long getToolCacheMaxBytes() {
+        return toolCacheMaxBytes;
+    }
+
+    public void setToolCacheMaxBytes(long toolCacheMaxBytes) {
+        this.toolCacheMaxBytes = toolCacheMaxBytes;
+    }
+
+    public Map<String, Long> getToolCacheTtlMillis() {
+        return toolCacheTtlMillis;
+    }
+
+    public void setToolCacheTtlMillis(Map<String, Long> toolCacheTtlMillis) {
+        this.toolCacheTtlMillis = toolCacheTtlMillis;
+    }
+
+    public long getBrokerConfigCacheTtlMillis() {
+        return brokerConfigCacheTtlMillis;
+    }
+
+    public void setBrokerConfigCacheTtlMillis(long brokerConfigCacheTtlMillis) {
+        this.brokerConfigCacheTtlMillis = brokerConfigCacheTtlMillis;
+    }
+
+    public Map<String, ClusterProfile> getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(Map<String, ClusterProfile> clusters) {
+        this.clusters = clusters;
+    }
+
+    public long getTopicLocatorRefreshIntervalMillis() {
+        return topicLocatorRefreshIntervalMillis;
+    }
+
+    public void setTopicLocatorRefreshIntervalMillis(long topicLocatorRefreshIntervalMillis) {
+        this.topicLocatorRefreshIntervalMillis = topicLocatorRefreshIntervalMillis;
+    }
+
+    public int getProducerPoolMaxSize() {
+        return producerPoolMaxSize;
+    }
+
+    public void setProducerPoolMaxSize(int producerPoolMaxSize) {
+        this.producerPoolMaxSize = producerPoolMaxSize;
+    }
+
+    public long getProducerPoolIdleMillis() {
+        return producerPoolIdleMillis;
+    }
+
+    public void setProducerPoolIdleMillis(long producerPoolIdleMillis) {
+        this.producerPoolIdleMillis = producerPoolIdleMillis;
+    }
+
+    public String getReplayCheckpointDir() {
+        return replayCheckpointDir;
+    }
+
+    public void setReplayCheckpointDir(String replayCheckpointDir) {
+        this.replayCheckpointDir = replayCheckpointDir;
+    }
+
+    public long getGroupSnapshotTtlMillis() {
+        return groupSnapshotTtlMillis;
+    }
+
+    public void setGroupSnapshotTtlMillis(long groupSnapshotTtlMillis) {
+        this.groupSnapshotTtlMillis = groupSnapshotTtlMillis;
+    }
+
+    public int getTopicHotspotMaxStatsPerSecond() {
+        return topicHotspotMaxStatsPerSecond;
+    }
+
+    public void setTopicHotspotMaxStatsPerSecond(int topicHotspotMaxStatsPerSecond) {
+        this.topicHotspotMaxStatsPerSecond = topicHotspotMaxStatsPerSecond;
+    }
+
+    public long getTopicHotspotBaselineMaxAgeMillis() {
+        return topicHotspotBaselineMaxAgeMillis;
+    }
+
+    public void setTopicHotspotBaselineMaxAgeMillis(long topicHotspotBaselineMaxAgeMillis) {
+        this.topicHotspotBaselineMaxAgeMillis = topicHotspotBaselineMaxAgeMillis;
+    }
 }
@@ -4,8 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 import org.apache.rocketmq.mcp.tool.Acl;
 import org.apache.rocketmq.mcp.tool.Broker;
+import org.apache.rocketmq.mcp.tool.Cluster;
+import org.apache.rocketmq.mcp.tool.ConsumeQueue;
 import org.apache.rocketmq.mcp.tool.Consumer;
 import org.apache.rocketmq.mcp.tool.Controller;
+import org.apache.rocketmq.mcp.tool.Federation;
 import org.apache.rocketmq.mcp.tool.Message;
 import org.apache.rocketmq.mcp.tool.Nameserver;
 import org.apache.rocketmq.mcp.tool.Producer;
@@ -24,13 +27,16 @@ public class ReadOnlyInterceptor implements HandlerInterceptor {
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Nameserver.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Broker.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Acl.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
+        ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Cluster.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
 
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Topic.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Producer.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Consumer.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Message.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
+        ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(ConsumeQueue.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
 
         ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Controller.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
+        ReadOnlyInterceptor.WRITE_OPERATIONS.addAll(Federation.WRITE_OPERATIONS.stream().map(String::toLowerCase).toList());
     }
 
     @Autowired
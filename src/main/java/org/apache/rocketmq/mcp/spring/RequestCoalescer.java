@@ -0,0 +1,110 @@
+package org.apache.rocketmq.mcp.spring;
+
+import com.alibaba.fastjson2.JSON;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 只读工具的并发请求合并
+ * 工具名 + 规范化后的参数相同的并发调用只执行一次, 其余调用等待并共享同一个结果
+ * 凭证参与key的计算(不同凭证不会共享结果), 但不会出现在日志中
+ */
+@Component
+public class RequestCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+    private static final List<String> CREDENTIAL_FIELDS = List.of("ak", "sk", "password");
+
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    public String execute(String toolName, String toolInput, Supplier<String> call) {
+        if (!mcpConfig.isCoalesceReadOnlyTools()) {
+            return call.get();
+        }
+
+        String key = requestKey(toolName, toolInput);
+        CompletableFuture<String> current = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, current);
+        if (existing != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("合并并发请求: {} {}", toolName, JSON.toJSONString(maskCredentials(parseArguments(toolInput))));
+            }
+            return await(existing);
+        }
+
+        try {
+            String result = call.get();
+            current.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            current.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, current);
+        }
+    }
+
+    /**
+     * 请求key: 工具名 + 规范化参数的摘要, 结果缓存与请求合并使用同一个key
+     */
+    public static String requestKey(String toolName, String toolInput) {
+        return toolName + ":" + AdminUtil.digest(JSON.toJSONString(parseArguments(toolInput)));
+    }
+
+    /**
+     * 解析参数并按key排序, 使参数顺序不同的相同请求得到相同的key
+     */
+    private static Object parseArguments(String toolInput) {
+        try {
+            return normalize(JSON.parse(toolInput));
+        } catch (Exception e) {
+            return toolInput;
+        }
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((key, item) -> sorted.put(String.valueOf(key), normalize(item)));
+            return sorted;
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(RequestCoalescer::normalize).toList();
+        }
+        return value;
+    }
+
+    private static Object maskCredentials(Object arguments) {
+        if (!(arguments instanceof Map<?, ?> map)) {
+            return arguments;
+        }
+        Map<String, Object> masked = new TreeMap<>();
+        map.forEach((key, value) -> masked.put(String.valueOf(key), CREDENTIAL_FIELDS.contains(String.valueOf(key)) ? "******" : value));
+        return masked;
+    }
+
+    private String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
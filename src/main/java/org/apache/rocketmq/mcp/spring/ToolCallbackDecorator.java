@@ -0,0 +1,64 @@
+package org.apache.rocketmq.mcp.spring;
+
+import java.util.function.Supplier;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+/**
+ * 工具调用装饰器
+ * 包装MethodToolCallbackProvider生成的工具:
+ * 只读工具先查ToolResultCache, 未命中时经过RequestCoalescer合并;
+ * 写工具执行前后使同一工具类(group)的结果缓存失效
+ */
+public class ToolCallbackDecorator implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final String group;
+    private final RequestCoalescer requestCoalescer;
+    private final ToolResultCache toolResultCache;
+    private final boolean readOnly;
+
+    public ToolCallbackDecorator(ToolCallback delegate, String group, RequestCoalescer requestCoalescer,
+                                 ToolResultCache toolResultCache) {
+        this.delegate = delegate;
+        this.group = group;
+        this.requestCoalescer = requestCoalescer;
+        this.toolResultCache = toolResultCache;
+        this.readOnly = !ReadOnlyInterceptor.WRITE_OPERATIONS.contains(delegate.getToolDefinition().name().toLowerCase());
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return invoke(toolInput, () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return invoke(toolInput, () -> delegate.call(toolInput, toolContext));
+    }
+
+    private String invoke(String toolInput, Supplier<String> call) {
+        String toolName = getToolDefinition().name();
+        if (!readOnly) {
+            toolResultCache.invalidate(group);
+            try {
+                return call.get();
+            } finally {
+                toolResultCache.invalidate(group);
+            }
+        }
+        return toolResultCache.get(group, toolName, toolInput, () -> requestCoalescer.execute(toolName, toolInput, call));
+    }
+}
@@ -0,0 +1,141 @@
+package org.apache.rocketmq.mcp.spring;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 只读工具的结果缓存
+ * 基于Caffeine(W-TinyLFU淘汰), 按结果字符串估算的字节数限制总内存, 每个工具使用独立的TTL,
+ * 只缓存errorCode为0的结果; 工具按所属的工具类分组, 同组的写操作执行前后都会使整组缓存失效,
+ * 并通过分组代数防止写操作期间发起的读请求把旧结果写回缓存
+ */
+@Component
+public class ToolResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolResultCache.class);
+
+    /**
+     * 每个缓存项的固定开销估算(对象头, 引用, 哈希表节点等)
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, Long> ttlMillis = new HashMap<>();
+    private Cache<String, CachedResult> cache;
+
+    @Autowired
+    private McpConfig mcpConfig;
+
+    private record CachedResult(String value, long ttlNanos) {
+    }
+
+    @PostConstruct
+    public void init() {
+        mcpConfig.getToolCacheTtlMillis().forEach((toolName, ttl) -> {
+            if (ttl != null && ttl > 0) {
+                ttlMillis.put(toolName.toLowerCase(), ttl);
+            }
+        });
+        cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(0, mcpConfig.getToolCacheMaxBytes()))
+                .weigher((String key, CachedResult result) -> weigh(key, result))
+                .expireAfter(new Expiry<String, CachedResult>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResult result, long currentTime) {
+                        return result.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResult result, long currentTime, long currentDuration) {
+                        return result.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResult result, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        logger.info("工具结果缓存: maxBytes={}, ttlMillis={}", mcpConfig.getToolCacheMaxBytes(), ttlMillis);
+    }
+
+    /**
+     * 命中则直接返回缓存结果, 否则执行loader, 结果成功且期间分组没有被写操作失效时写入缓存
+     */
+    public String get(String group, String toolName, String toolInput, Supplier<String> loader) {
+        Long ttl = ttlMillis.get(toolName.toLowerCase());
+        if (ttl == null) {
+            return loader.get();
+        }
+
+        String key = group + ":" + RequestCoalescer.requestKey(toolName, toolInput);
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached.value();
+        }
+
+        long generation = generation(group).get();
+        String result = loader.get();
+        if (isSuccess(result) && generation(group).get() == generation) {
+            cache.put(key, new CachedResult(result, TimeUnit.MILLISECONDS.toNanos(ttl)));
+            // 写入与失效之间存在竞争, 写入后再次确认分组没有被失效
+            if (generation(group).get() != generation) {
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 使分组内的所有缓存失效, 写操作执行前后各调用一次
+     */
+    public void invalidate(String group) {
+        generation(group).incrementAndGet();
+        String prefix = group + ":";
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        logger.debug("工具结果缓存失效: group={}, weightedBytes={}", group, weightedBytes());
+    }
+
+    /**
+     * 当前缓存占用的估算字节数
+     */
+    public long weightedBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private AtomicLong generation(String group) {
+        return generations.computeIfAbsent(group, key -> new AtomicLong());
+    }
+
+    private static int weigh(String key, CachedResult result) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * (key.length() + result.value().length());
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static boolean isSuccess(String result) {
+        if (result == null) {
+            return false;
+        }
+        try {
+            Object parsed = JSON.parse(result);
+            return parsed instanceof JSONObject json && json.containsKey("errorCode") && json.getIntValue("errorCode") == 0;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package org.apache.rocketmq.mcp.tool;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.rocketmq.common.PlainAccessConfig;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.remoting.protocol.body.AclInfo;
 import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.remoting.protocol.body.UserInfo;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 
@@ -21,9 +31,22 @@ public class Acl {
             "deleteUser",
             "createAcl",
             "updateAcl",
-            "deleteAcl"
+            "deleteAcl",
+            "createUserInCluster",
+            "updateUserInCluster",
+            "createAclInCluster",
+            "updateAclInCluster"
     );
 
+    /**
+     * 集群级写操作的结果
+     * failedBrokers: 写入失败的broker; readBack: 写入成功后回读的、与本次写入相关的字段(不含密码);
+     * divergentBrokers: 回读失败、不存在或与请求值不一致的broker及不一致的字段; converged: 所有master写入成功且回读与请求一致
+     */
+    public record ClusterApplyResult(List<String> brokers, Map<String, String> failedBrokers, Map<String, Object> readBack,
+                                     Map<String, String> divergentBrokers, boolean converged) {
+    }
+
     @Tool(description = "创建和更新acl配置")
     public ApiResponse<String> createAndUpdatePlainAccessConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                 @ToolParam(description = "access key or ak") String ak,
@@ -40,12 +63,18 @@ public class Acl {
             if (clusterInfo == null || clusterInfo.getBrokerAddrTable() == null || clusterInfo.getBrokerAddrTable().isEmpty()) {
                 return "[fail] clusterInfo or brokerAddrTable is null";
             }
-            try {
-                admin.createAndUpdatePlainAccessConfig(clusterInfo.getBrokerAddrTable().keySet().iterator().next(), plainAccessConfig);
-                return "[success] acl config created/updated";
-            } catch (Exception e) {
-                return "[fail] createAndUpdatePlainAccessConfig exception: " + ExceptionUtils.getStackTrace(e);
+            List<String> masters = Broker.getMasterAddresses(clusterInfo, null);
+            if (masters.isEmpty()) {
+                return "[fail] no master broker found";
             }
+            Map<String, String> failedBrokers = ParallelUtil.errorMessages(ParallelUtil.invokeAllWrites(masters, brokerAddr -> {
+                admin.createAndUpdatePlainAccessConfig(brokerAddr, plainAccessConfig);
+                return "success";
+            }, ParallelUtil.DEFAULT_PARALLELISM, ParallelUtil.DEFAULT_TIMEOUT_MILLIS));
+            if (!failedBrokers.isEmpty()) {
+                return "[fail] createAndUpdatePlainAccessConfig failed on " + failedBrokers.size() + "/" + masters.size() + " brokers: " + failedBrokers;
+            }
+            return "[success] acl config created/updated on " + masters.size() + " brokers";
         }, ak, sk, nameserverAddressList);
     }
 
@@ -283,4 +312,220 @@ public class Acl {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    @Tool(description = "在集群的所有master上并发创建用户, 并回读校验各broker是否与请求一致")
+    public ApiResponse<ClusterApplyResult> createUserInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                               @ToolParam(description = "access key or ak") String ak,
+                                                               @ToolParam(description = "secret key or sk") String sk,
+                                                               @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                               @ToolParam(description = "用户名") String username,
+                                                               @ToolParam(description = "密码") String password,
+                                                               @ToolParam(description = "用户类型") String userType) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                return applyToMasters(admin, clusterName,
+                        brokerAddr -> admin.createUser(brokerAddr, username, password, userType),
+                        brokerAddr -> userView(admin.getUser(brokerAddr, username)),
+                        expectedUser(userType, null));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "在集群的所有master上并发更新用户, 并回读校验各broker是否与请求一致")
+    public ApiResponse<ClusterApplyResult> updateUserInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                               @ToolParam(description = "access key or ak") String ak,
+                                                               @ToolParam(description = "secret key or sk") String sk,
+                                                               @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                               @ToolParam(description = "用户名") String username,
+                                                               @ToolParam(description = "密码") String password,
+                                                               @ToolParam(description = "用户类型") String userType,
+                                                               @ToolParam(description = "用户状态") String userStatus) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                return applyToMasters(admin, clusterName,
+                        brokerAddr -> admin.updateUser(brokerAddr, username, password, userType, userStatus),
+                        brokerAddr -> userView(admin.getUser(brokerAddr, username)),
+                        expectedUser(userType, userStatus));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "在集群的所有master上并发创建ACL, 并回读校验各broker是否与请求一致")
+    public ApiResponse<ClusterApplyResult> createAclInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                              @ToolParam(description = "access key or ak") String ak,
+                                                              @ToolParam(description = "secret key or sk") String sk,
+                                                              @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                              @ToolParam(description = "主体") String subject,
+                                                              @ToolParam(description = "资源列表") List<String> resources,
+                                                              @ToolParam(description = "操作列表") List<String> actions,
+                                                              @ToolParam(description = "源IP列表") List<String> sourceIps,
+                                                              @ToolParam(description = "决策") String decision) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                return applyToMasters(admin, clusterName,
+                        brokerAddr -> admin.createAcl(brokerAddr, subject, resources, actions, sourceIps, decision),
+                        brokerAddr -> aclView(admin.getAcl(brokerAddr, subject), resources),
+                        expectedAcl(resources, actions, sourceIps, decision));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "在集群的所有master上并发更新ACL, 并回读校验各broker是否与请求一致")
+    public ApiResponse<ClusterApplyResult> updateAclInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                              @ToolParam(description = "access key or ak") String ak,
+                                                              @ToolParam(description = "secret key or sk") String sk,
+                                                              @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                              @ToolParam(description = "主体") String subject,
+                                                              @ToolParam(description = "资源列表") List<String> resources,
+                                                              @ToolParam(description = "操作列表") List<String> actions,
+                                                              @ToolParam(description = "源IP列表") List<String> sourceIps,
+                                                              @ToolParam(description = "决策") String decision) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                return applyToMasters(admin, clusterName,
+                        brokerAddr -> admin.updateAcl(brokerAddr, subject, resources, actions, sourceIps, decision),
+                        brokerAddr -> aclView(admin.getAcl(brokerAddr, subject), resources),
+                        expectedAcl(resources, actions, sourceIps, decision));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    private interface BrokerWrite {
+        void apply(String brokerAddr) throws Exception;
+    }
+
+    /**
+     * 并发写入所有master(超时不中断正在进行的写入), 再并发回读写入成功的broker, 逐个字段与请求值比较;
+     * readBack把broker返回的对象转换成与expected相同结构的字段表, 不存在时返回null
+     */
+    private ClusterApplyResult applyToMasters(DefaultMQAdminExt admin, String clusterName, BrokerWrite write,
+                                              ParallelUtil.Task<String, Map<String, Object>> readBack,
+                                              Map<String, Object> expected) throws Exception {
+        List<String> masters = Broker.getMasterAddresses(admin, clusterName);
+        if (masters.isEmpty()) {
+            throw new IllegalStateException("no master broker found" + (clusterName == null ? "" : " in cluster " + clusterName));
+        }
+
+        Map<String, ApiResponse<String>> applied = ParallelUtil.invokeAllWrites(masters, brokerAddr -> {
+            write.apply(brokerAddr);
+            return "success";
+        }, ParallelUtil.DEFAULT_PARALLELISM, ParallelUtil.DEFAULT_TIMEOUT_MILLIS);
+        Map<String, String> failedBrokers = ParallelUtil.errorMessages(applied);
+        List<String> appliedBrokers = new ArrayList<>(ParallelUtil.successData(applied).keySet());
+
+        Map<String, ApiResponse<Map<String, Object>>> readResults = ParallelUtil.invokeAll(appliedBrokers, readBack);
+        Map<String, Object> readBackData = new LinkedHashMap<>();
+        Map<String, String> divergentBrokers = new LinkedHashMap<>();
+        readResults.forEach((brokerAddr, response) -> {
+            if (response.getErrorCode() != 0) {
+                divergentBrokers.put(brokerAddr, "read back failed: " + response.getErrorMessage());
+                return;
+            }
+            if (response.getData() == null) {
+                divergentBrokers.put(brokerAddr, "not found after write");
+                return;
+            }
+            readBackData.put(brokerAddr, response.getData());
+            List<String> mismatches = new ArrayList<>();
+            expected.forEach((field, value) -> {
+                Object actual = response.getData().get(field);
+                if (!Objects.equals(value, actual)) {
+                    mismatches.add(field + ": expected " + value + ", actual " + actual);
+                }
+            });
+            if (!mismatches.isEmpty()) {
+                divergentBrokers.put(brokerAddr, String.join("; ", mismatches));
+            }
+        });
+
+        boolean converged = failedBrokers.isEmpty() && divergentBrokers.isEmpty();
+        return new ClusterApplyResult(masters, failedBrokers, readBackData, divergentBrokers, converged);
+    }
+
+    /**
+     * 用户回读只保留用户名、类型和状态, 密码不返回给调用方
+     */
+    private static Map<String, Object> userView(UserInfo user) {
+        if (user == null) {
+            return null;
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("username", user.getUsername());
+        view.put("userType", normalize(user.getUserType()));
+        view.put("userStatus", normalize(user.getUserStatus()));
+        return view;
+    }
+
+    private static Map<String, Object> expectedUser(String userType, String userStatus) {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        if (userType != null) {
+            expected.put("userType", normalize(userType));
+        }
+        if (userStatus != null) {
+            expected.put("userStatus", normalize(userStatus));
+        }
+        return expected;
+    }
+
+    /**
+     * ACL回读只保留本次写入的资源: resources为broker上存在的请求资源, 每个资源的actions/sourceIps排序后比较
+     */
+    private static Map<String, Object> aclView(AclInfo acl, List<String> resources) {
+        if (acl == null) {
+            return null;
+        }
+        Map<String, AclInfo.PolicyEntryInfo> entries = new HashMap<>();
+        if (acl.getPolicies() != null) {
+            for (AclInfo.PolicyInfo policy : acl.getPolicies()) {
+                if (policy.getEntries() != null) {
+                    policy.getEntries().forEach(entry -> entries.put(entry.getResource(), entry));
+                }
+            }
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("resources", sorted(resources.stream().filter(entries::containsKey).toList(), false));
+        for (String resource : resources) {
+            AclInfo.PolicyEntryInfo entry = entries.get(resource);
+            if (entry != null) {
+                view.put(resource + ".actions", sorted(entry.getActions(), true));
+                view.put(resource + ".sourceIps", sorted(entry.getSourceIps(), false));
+                view.put(resource + ".decision", normalize(entry.getDecision()));
+            }
+        }
+        return view;
+    }
+
+    private static Map<String, Object> expectedAcl(List<String> resources, List<String> actions, List<String> sourceIps,
+                                                   String decision) {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("resources", sorted(resources, false));
+        for (String resource : resources) {
+            expected.put(resource + ".actions", sorted(actions, true));
+            expected.put(resource + ".sourceIps", sorted(sourceIps, false));
+            expected.put(resource + ".decision", normalize(decision));
+        }
+        return expected;
+    }
+
+    /**
+     * broker返回的枚举名大小写可能与请求不同, 统一转小写比较
+     */
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> sorted(List<String> values, boolean ignoreCase) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream().map(value -> ignoreCase ? normalize(value) : value).sorted().distinct().toList();
+    }
+
+}
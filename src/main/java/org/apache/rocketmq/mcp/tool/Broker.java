@@ -1,18 +1,33 @@
 package org.apache.rocketmq.mcp.tool;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.client.exception.MQBrokerException;
+import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.service.BrokerConfigCache;
 import org.apache.rocketmq.remoting.exception.RemotingConnectException;
 import org.apache.rocketmq.remoting.exception.RemotingSendRequestException;
 import org.apache.rocketmq.remoting.exception.RemotingTimeoutException;
 import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.remoting.protocol.body.HARuntimeInfo;
+import org.apache.rocketmq.remoting.protocol.body.KVTable;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
 import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @org.springframework.stereotype.Service
 public class Broker {
@@ -25,9 +40,73 @@ public class Broker {
             "updateColdDataFlowCtrGroupConfig",
             "removeColdDataFlowCtrGroupConfig",
             "deleteExpiredCommitLog",
-            "deleteExpiredCommitLogByAddr"
+            "deleteExpiredCommitLogByAddr",
+            "rollingUpdateBrokerConfig"
     );
 
+    /**
+     * 配置漂移检测默认忽略的配置项, 这些配置项在每个broker上本来就不同
+     */
+    public static final List<String> DRIFT_IGNORED_KEYS = List.of(
+            "brokerName",
+            "brokerId",
+            "brokerIP1",
+            "brokerIP2",
+            "brokerRole",
+            "listenPort",
+            "haListenPort"
+    );
+
+    private static final String ABSENT_VALUE = "<absent>";
+    private static final String SEND_QUEUE_HEAD_WAIT_KEY = "sendThreadPoolQueueHeadWaitTimeMills";
+    private static final long DEFAULT_SETTLE_MILLIS = 5000;
+    private static final long DEFAULT_MAX_SEND_QUEUE_WAIT_MILLIS = 200;
+    private static final long DEFAULT_HA_SWEEP_TIMEOUT_MILLIS = 10000;
+
+    @Autowired
+    private BrokerConfigCache brokerConfigCache;
+
+    public record FingerprintGroup(String fingerprint, List<String> brokers) {
+    }
+
+    /**
+     * wave: 批次序号, 从1开始; failedBrokers: 更新失败或更新后检查未通过的broker及原因; passed: 本批次全部更新成功且检查通过
+     */
+    public record WaveResult(int wave, List<String> brokers, Map<String, String> failedBrokers, boolean passed) {
+    }
+
+    /**
+     * completed为false时stopReason说明停止原因, pendingBrokers为尚未更新的broker
+     */
+    public record RollingUpdateResult(boolean completed, String stopReason, List<WaveResult> waves,
+                                      List<String> pendingBrokers) {
+    }
+
+    /**
+     * estimatedCatchUpMillis: 按当前传输速率估算的追平时间, 传输速率为0时为null
+     */
+    public record SlaveLag(String brokerName, String masterAddr, String slaveAddr, long lagBytes, boolean inSync,
+                           long transferredBytesPerSecond, Long estimatedCatchUpMillis) {
+    }
+
+    /**
+     * expectedSlaves为nameserver中登记的slave数量, connectedSlaves为master上实际的HA连接数量
+     */
+    public record MasterHAState(String brokerName, String masterAddr, long commitLogMaxOffset, int inSyncSlaveNums,
+                                int connectedSlaves, int expectedSlaves) {
+    }
+
+    public record ReplicationLagSweep(List<SlaveLag> slaves, List<MasterHAState> masters, Map<String, String> failedBrokers) {
+    }
+
+    /**
+     * differingKeys: 配置项 -> (配置值 -> broker列表), 只包含不一致的配置项
+     */
+    public record ConfigDriftReport(int brokerCount, boolean drifted, List<FingerprintGroup> groups,
+                                    Map<String, Map<String, List<String>>> differingKeys, List<String> fetchedBrokers,
+                                    List<String> cachedBrokers, Map<String, String> failedBrokers) {
+    }
+
     public static List<String> getAllBrokerAddresses(DefaultMQAdminExt admin) throws RemotingConnectException, RemotingSendRequestException, RemotingTimeoutException, MQBrokerException, InterruptedException {
         List<String> result = new ArrayList<>();
         ClusterInfo clusterInfo = admin.examineBrokerClusterInfo();
@@ -39,6 +118,47 @@ public class Broker {
         return result;
     }
 
+    /**
+     * 获取指定集群下的broker, clusterName为空时返回全部broker
+     */
+    public static List<BrokerData> getBrokerDatas(ClusterInfo clusterInfo, String clusterName) {
+        List<BrokerData> result = new ArrayList<>();
+        if (clusterInfo == null || clusterInfo.getBrokerAddrTable() == null) {
+            return result;
+        }
+        Set<String> brokerNames = null;
+        if (StringUtils.isNotBlank(clusterName)) {
+            brokerNames = clusterInfo.getClusterAddrTable() == null ? null : clusterInfo.getClusterAddrTable().get(clusterName);
+            if (brokerNames == null) {
+                return result;
+            }
+        }
+        for (BrokerData brokerData : clusterInfo.getBrokerAddrTable().values()) {
+            if (brokerNames == null || brokerNames.contains(brokerData.getBrokerName())) {
+                result.add(brokerData);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取指定集群下全部master地址, clusterName为空时返回全部master
+     */
+    public static List<String> getMasterAddresses(ClusterInfo clusterInfo, String clusterName) {
+        List<String> result = new ArrayList<>();
+        for (BrokerData brokerData : getBrokerDatas(clusterInfo, clusterName)) {
+            String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+            if (masterAddr != null) {
+                result.add(masterAddr);
+            }
+        }
+        return result;
+    }
+
+    public static List<String> getMasterAddresses(DefaultMQAdminExt admin, String clusterName) throws RemotingConnectException, RemotingSendRequestException, RemotingTimeoutException, MQBrokerException, InterruptedException {
+        return getMasterAddresses(admin.examineBrokerClusterInfo(), clusterName);
+    }
+
     @Tool(description = "获取Broker统计信息")
     public ApiResponse<Object> getBrokerRuntimeStats(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                      @ToolParam(description = "access key or ak") String ak,
@@ -79,6 +199,123 @@ public class Broker {
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
+            } finally {
+                brokerConfigCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), brokerAddr);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "分批滚动更新broker配置: 默认先slave后master, 每批更新后校验配置是否生效以及broker运行状态, 出现异常时自动停止")
+    public ApiResponse<RollingUpdateResult> rollingUpdateBrokerConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                      @ToolParam(description = "access key or ak") String ak,
+                                                                      @ToolParam(description = "secret key or sk") String sk,
+                                                                      @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                      @ToolParam(description = "配置属性") Properties properties,
+                                                                      @ToolParam(description = "每批并发更新的broker数量, 默认1", required = false) Integer waveSize,
+                                                                      @ToolParam(description = "是否先更新slave再更新master, 默认true", required = false) Boolean slavesFirst,
+                                                                      @ToolParam(description = "每批更新后等待多久再校验(毫秒), 默认5000", required = false) Long settleMillis,
+                                                                      @ToolParam(description = "发送线程池队列头部等待时间上限(毫秒), 超过且高于更新前的值视为异常, 默认200", required = false) Long maxSendQueueWaitMillis) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                List<String> slaves = new ArrayList<>();
+                List<String> masters = new ArrayList<>();
+                for (BrokerData brokerData : getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+                    if (brokerData.getBrokerAddrs() != null) {
+                        brokerData.getBrokerAddrs().forEach((brokerId, brokerAddr) -> (brokerId == MixAll.MASTER_ID ? masters : slaves).add(brokerAddr));
+                    }
+                }
+                List<String> ordered = new ArrayList<>();
+                ordered.addAll(Boolean.FALSE.equals(slavesFirst) ? masters : slaves);
+                ordered.addAll(Boolean.FALSE.equals(slavesFirst) ? slaves : masters);
+                if (ordered.isEmpty()) {
+                    throw new IllegalStateException("no broker found" + (clusterName == null ? "" : " in cluster " + clusterName));
+                }
+
+                int size = waveSize == null || waveSize <= 0 ? 1 : waveSize;
+                long settle = settleMillis == null || settleMillis < 0 ? DEFAULT_SETTLE_MILLIS : settleMillis;
+                long maxWait = maxSendQueueWaitMillis == null ? DEFAULT_MAX_SEND_QUEUE_WAIT_MILLIS : maxSendQueueWaitMillis;
+                String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+                List<WaveResult> waves = new ArrayList<>();
+                for (int start = 0; start < ordered.size(); start += size) {
+                    List<String> wave = ordered.subList(start, Math.min(start + size, ordered.size()));
+                    WaveResult result = applyWave(admin, clusterKey, waves.size() + 1, wave, properties, settle, maxWait);
+                    waves.add(result);
+                    if (!result.passed()) {
+                        return new RollingUpdateResult(false, "wave " + result.wave() + " failed: " + result.failedBrokers(),
+                                waves, new ArrayList<>(ordered.subList(start + wave.size(), ordered.size())));
+                    }
+                }
+                return new RollingUpdateResult(true, null, waves, new ArrayList<>());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "并发扫描所有master的HA状态, 计算每个slave的复制延迟(字节数和估算的追平时间)及同步状态, 按延迟从大到小排序")
+    public ApiResponse<ReplicationLagSweep> sweepReplicationLag(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                @ToolParam(description = "access key or ak") String ak,
+                                                                @ToolParam(description = "secret key or sk") String sk,
+                                                                @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                @ToolParam(description = "整体超时时间(毫秒), 超时未返回的broker记为失败, 默认10000", required = false) Long timeoutMillis) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                Map<String, BrokerData> masters = new LinkedHashMap<>();
+                for (BrokerData brokerData : getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+                    String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                    if (masterAddr != null) {
+                        masters.put(masterAddr, brokerData);
+                    }
+                }
+                long timeout = timeoutMillis == null || timeoutMillis <= 0 ? DEFAULT_HA_SWEEP_TIMEOUT_MILLIS : timeoutMillis;
+                Map<String, ApiResponse<HARuntimeInfo>> fetched = ParallelUtil.invokeAll(masters.keySet(), admin::getBrokerHAStatus,
+                        ParallelUtil.DEFAULT_PARALLELISM, timeout);
+
+                List<SlaveLag> slaves = new ArrayList<>();
+                List<MasterHAState> masterStates = new ArrayList<>();
+                ParallelUtil.successData(fetched).forEach((masterAddr, haInfo) -> {
+                    BrokerData brokerData = masters.get(masterAddr);
+                    List<HARuntimeInfo.HAConnectionRuntimeInfo> connections = haInfo.getHaConnectionInfo() == null
+                            ? new ArrayList<>() : haInfo.getHaConnectionInfo();
+                    for (HARuntimeInfo.HAConnectionRuntimeInfo connection : connections) {
+                        long lagBytes = Math.max(0, connection.getDiff());
+                        long rate = connection.getTransferredByteInSecond();
+                        Long catchUpMillis = lagBytes == 0 ? Long.valueOf(0) : rate > 0 ? Long.valueOf(lagBytes * 1000 / rate) : null;
+                        slaves.add(new SlaveLag(brokerData.getBrokerName(), masterAddr, connection.getAddr(), lagBytes,
+                                connection.isInSync(), rate, catchUpMillis));
+                    }
+                    masterStates.add(new MasterHAState(brokerData.getBrokerName(), masterAddr, haInfo.getMasterCommitLogMaxOffset(),
+                            haInfo.getInSyncSlaveNums(), connections.size(), brokerData.getBrokerAddrs().size() - 1));
+                });
+                slaves.sort(Comparator.comparing(SlaveLag::inSync).thenComparing(SlaveLag::lagBytes, Comparator.reverseOrder()));
+                return new ReplicationLagSweep(slaves, masterStates, ParallelUtil.errorMessages(fetched));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "检测broker配置漂移: 并发获取全部broker配置, 按配置指纹分组, 只返回不一致的配置项")
+    public ApiResponse<ConfigDriftReport> detectBrokerConfigDrift(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                  @ToolParam(description = "access key or ak") String ak,
+                                                                  @ToolParam(description = "secret key or sk") String sk,
+                                                                  @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                  @ToolParam(description = "只比较这些配置项, 为空表示比较全部配置项", required = false) List<String> keys,
+                                                                  @ToolParam(description = "忽略的配置项, 为空时忽略brokerName/brokerId/brokerIP1等每个broker本来就不同的配置项", required = false) List<String> ignoreKeys,
+                                                                  @ToolParam(description = "是否忽略缓存重新拉取全部broker配置", required = false) Boolean forceRefresh) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                List<String> brokerAddrs = new ArrayList<>();
+                for (BrokerData brokerData : getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+                    if (brokerData.getBrokerAddrs() != null) {
+                        brokerAddrs.addAll(brokerData.getBrokerAddrs().values());
+                    }
+                }
+                BrokerConfigCache.FetchResult fetchResult = brokerConfigCache.fetch(AdminUtil.clusterKey(nameserverAddressList, ak, sk),
+                        admin, brokerAddrs, Boolean.TRUE.equals(forceRefresh));
+                return buildDriftReport(fetchResult, keys, ignoreKeys == null ? DRIFT_IGNORED_KEYS : ignoreKeys);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
         }, ak, sk, nameserverAddressList);
     }
@@ -300,4 +537,88 @@ public class Broker {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    private ConfigDriftReport buildDriftReport(BrokerConfigCache.FetchResult fetchResult, List<String> keys, List<String> ignoreKeys) {
+        Set<String> ignored = new HashSet<>(ignoreKeys);
+        Map<String, Map<String, String>> compared = new LinkedHashMap<>();
+        Set<String> allKeys = new TreeSet<>();
+        fetchResult.configs().forEach((brokerAddr, config) -> {
+            Map<String, String> properties = new TreeMap<>();
+            config.properties().forEach((name, value) -> {
+                if (!ignored.contains(name) && (keys == null || keys.isEmpty() || keys.contains(name))) {
+                    properties.put(name, value);
+                }
+            });
+            compared.put(brokerAddr, properties);
+            allKeys.addAll(properties.keySet());
+        });
+
+        Map<String, List<String>> fingerprintBrokers = new LinkedHashMap<>();
+        compared.forEach((brokerAddr, properties) ->
+                fingerprintBrokers.computeIfAbsent(BrokerConfigCache.fingerprint(properties), key -> new ArrayList<>()).add(brokerAddr));
+        List<FingerprintGroup> groups = new ArrayList<>();
+        fingerprintBrokers.forEach((fingerprint, brokers) -> groups.add(new FingerprintGroup(fingerprint, brokers)));
+        groups.sort((a, b) -> Integer.compare(b.brokers().size(), a.brokers().size()));
+
+        Map<String, Map<String, List<String>>> differingKeys = new TreeMap<>();
+        if (groups.size() > 1) {
+            for (String name : allKeys) {
+                Map<String, List<String>> valueBrokers = new TreeMap<>();
+                compared.forEach((brokerAddr, properties) ->
+                        valueBrokers.computeIfAbsent(properties.getOrDefault(name, ABSENT_VALUE), key -> new ArrayList<>()).add(brokerAddr));
+                if (valueBrokers.size() > 1) {
+                    differingKeys.put(name, valueBrokers);
+                }
+            }
+        }
+        return new ConfigDriftReport(compared.size(), groups.size() > 1, groups, differingKeys,
+                fetchResult.fetchedBrokers(), fetchResult.cachedBrokers(), fetchResult.failedBrokers());
+    }
+
+    /**
+     * 并发更新一批broker(超时不中断正在进行的更新), 等待settleMillis后校验配置是否生效, 并比较更新前后的发送队列等待时间
+     */
+    private WaveResult applyWave(DefaultMQAdminExt admin, String clusterKey, int waveIndex, List<String> wave,
+                                 Properties properties, long settleMillis, long maxSendQueueWaitMillis) throws InterruptedException {
+        Map<String, KVTable> baseline = ParallelUtil.successData(ParallelUtil.invokeAll(wave, admin::fetchBrokerRuntimeStats));
+        Map<String, String> failedBrokers = new LinkedHashMap<>(ParallelUtil.errorMessages(ParallelUtil.invokeAllWrites(wave, brokerAddr -> {
+            try {
+                admin.updateBrokerConfig(brokerAddr, properties);
+                return "success";
+            } finally {
+                brokerConfigCache.invalidate(clusterKey, brokerAddr);
+            }
+        }, ParallelUtil.DEFAULT_PARALLELISM, ParallelUtil.DEFAULT_TIMEOUT_MILLIS)));
+        if (!failedBrokers.isEmpty()) {
+            return new WaveResult(waveIndex, wave, failedBrokers, false);
+        }
+
+        Thread.sleep(settleMillis);
+        Map<String, ApiResponse<String>> verified = ParallelUtil.invokeAll(wave, brokerAddr -> {
+            Properties actual = admin.getBrokerConfig(brokerAddr);
+            for (String name : properties.stringPropertyNames()) {
+                if (!properties.getProperty(name).equals(actual.getProperty(name))) {
+                    throw new IllegalStateException("config not applied: " + name + "=" + actual.getProperty(name) + ", expected " + properties.getProperty(name));
+                }
+            }
+            long before = sendQueueHeadWait(baseline.get(brokerAddr));
+            long after = sendQueueHeadWait(admin.fetchBrokerRuntimeStats(brokerAddr));
+            if (after > maxSendQueueWaitMillis && after > before) {
+                throw new IllegalStateException(SEND_QUEUE_HEAD_WAIT_KEY + " regressed from " + before + "ms to " + after + "ms");
+            }
+            return "success";
+        });
+        failedBrokers.putAll(ParallelUtil.errorMessages(verified));
+        return new WaveResult(waveIndex, wave, failedBrokers, failedBrokers.isEmpty());
+    }
+
+    private static long sendQueueHeadWait(KVTable stats) {
+        if (stats == null || stats.getTable() == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(stats.getTable().getOrDefault(SEND_QUEUE_HEAD_WAIT_KEY, "0").trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
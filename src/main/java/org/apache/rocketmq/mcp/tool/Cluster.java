@@ -1,16 +1,86 @@
 package org.apache.rocketmq.mcp.tool;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.consumer.DefaultLitePullConsumer;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.TopicConfig;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.common.StatsUtil;
+import org.apache.rocketmq.mcp.service.ProducerPool;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.remoting.protocol.route.QueueData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * 利用rocketmq的admin接口提供rocketmq集群信息管理服务
  */
 @org.springframework.stereotype.Service
 public class Cluster {
+    public static final List<String> WRITE_OPERATIONS = List.of(
+            "probeEndToEndLatency"
+    );
+
+    private static final String DEFAULT_PROBE_TOPIC = "MCP_LATENCY_PROBE";
+    private static final String PROBE_CONSUMER_GROUP = "MCP_TOOL_PROBE_CONSUMER";
+    private static final String PROBE_ID_PROPERTY = "MCP_PROBE_ID";
+    private static final int PROBE_QUEUE_NUMS = 1;
+    private static final int DEFAULT_PROBE_ROUNDS = 5;
+    private static final int MAX_PROBE_ROUNDS = 100;
+    private static final long DEFAULT_PROBE_DURATION_MILLIS = 10000;
+    private static final long MAX_PROBE_DURATION_MILLIS = 60000;
+    private static final long PROBE_POLL_TIMEOUT_MILLIS = 1000;
+
+    @Autowired
+    private ProducerPool producerPool;
+
+    /**
+     * sendRt: 同步发送耗时; storeToConsume: 拉取到消息的时间 - broker存储时间(跨主机时钟, 受时钟偏差影响);
+     * endToEnd: 发送开始到拉取到消息的耗时(本机单调时钟); lost: 在时限内未拉取到的探测消息数
+     */
+    public record BrokerProbe(String brokerName, int queues, int sent, int received, int lost, StatsUtil.LatencySummary sendRt,
+                              StatsUtil.LatencySummary storeToConsume, StatsUtil.LatencySummary endToEnd, Map<String, String> errors) {
+    }
+
+    public record LatencyProbeReport(String probeTopic, String clusterName, long elapsedMillis, List<String> createdOnBrokers,
+                                     List<BrokerProbe> brokers, Map<String, String> failedBrokers) {
+    }
+
+    /**
+     * 一个broker上探测过程的原始数据, 耗时均为纳秒
+     */
+    private static final class ProbeSamples {
+        private final List<Long> sendRt = new ArrayList<>();
+        private final List<Long> storeToConsume = new ArrayList<>();
+        private final List<Long> endToEnd = new ArrayList<>();
+        private final Map<String, String> errors = new TreeMap<>();
+        private int sent;
+        private int lost;
+    }
 
     @Tool(description = "获取集群信息")
     public ApiResponse<Object> getClusterInfo(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
@@ -25,4 +95,189 @@ public class Cluster {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    @Tool(description = "端到端延迟探测: 向专用探测主题的每个broker/队列发送带时间戳的探测消息, 用短期的拉取消费者长轮询接收, 返回每个broker的发送耗时、存储到消费的延迟和端到端延迟分位数; 探测主题不存在时在集群的master上创建")
+    public ApiResponse<LatencyProbeReport> probeEndToEndLatency(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                @ToolParam(description = "access key or ak") String ak,
+                                                                @ToolParam(description = "secret key or sk") String sk,
+                                                                @ToolParam(description = "集群名称, 为空表示全部集群", required = false) String clusterName,
+                                                                @ToolParam(description = "探测主题, 默认MCP_LATENCY_PROBE", required = false) String probeTopic,
+                                                                @ToolParam(description = "每个队列的探测次数, 默认5, 最多100", required = false) Integer rounds,
+                                                                @ToolParam(description = "探测时长上限(毫秒), 默认10000, 最多60000; 从探测主题路由就绪后开始计时, 等待新建主题的路由同样以此为上限", required = false) Long durationMillis) {
+        String topic = StringUtils.defaultIfBlank(probeTopic, DEFAULT_PROBE_TOPIC);
+        int probeRounds = rounds == null || rounds <= 0 ? DEFAULT_PROBE_ROUNDS : Math.min(rounds, MAX_PROBE_ROUNDS);
+        long duration = durationMillis == null || durationMillis <= 0 ? DEFAULT_PROBE_DURATION_MILLIS : Math.min(durationMillis, MAX_PROBE_DURATION_MILLIS);
+        return AdminUtil.callAdminWithResponse(admin -> {
+            long begin = System.currentTimeMillis();
+            DefaultLitePullConsumer consumer = null;
+            ExecutorService receiver = null;
+            try {
+                List<String> created = ensureProbeTopic(admin, clusterName, topic, duration);
+                TopicRouteData routeData = admin.examineTopicRouteInfo(topic);
+                List<String> brokerNames = new ArrayList<>();
+                for (BrokerData brokerData : Broker.getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+                    brokerNames.add(brokerData.getBrokerName());
+                }
+                Map<String, Integer> queueNums = new HashMap<>();
+                for (QueueData queueData : routeData.getQueueDatas()) {
+                    if (brokerNames.contains(queueData.getBrokerName())) {
+                        queueNums.put(queueData.getBrokerName(), queueData.getWriteQueueNums());
+                    }
+                }
+
+                consumer = new DefaultLitePullConsumer(PROBE_CONSUMER_GROUP, AdminUtil.getRpcHook(AdminUtil.resolveAk(ak), AdminUtil.resolveSk(sk)));
+                consumer.setNamesrvAddr(AdminUtil.resolveNameserver(nameserverAddressList));
+                consumer.setInstanceName("mcp-probe-" + UUID.randomUUID());
+                consumer.setAutoCommit(false);
+                consumer.start();
+                List<MessageQueue> probeQueues = new ArrayList<>();
+                queueNums.forEach((brokerName, nums) -> {
+                    for (int queueId = 0; queueId < nums; queueId++) {
+                        probeQueues.add(new MessageQueue(topic, brokerName, queueId));
+                    }
+                });
+                consumer.assign(probeQueues);
+                for (MessageQueue mq : probeQueues) {
+                    consumer.seekToEnd(mq);
+                }
+                Map<String, CompletableFuture<MessageExt>> awaiting = new ConcurrentHashMap<>();
+                DefaultLitePullConsumer probeConsumer = consumer;
+                receiver = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "mcp-probe-receiver");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                receiver.execute(() -> receiveProbes(probeConsumer, awaiting));
+                long deadline = System.currentTimeMillis() + duration;
+                Map<String, ApiResponse<BrokerProbe>> probes = producerPool.execute(nameserverAddressList, ak, sk, producer ->
+                        ParallelUtil.invokeAll(queueNums.keySet(), brokerName -> probeBroker(producer, awaiting, topic, brokerName,
+                                queueNums.get(brokerName), probeRounds, deadline), ParallelUtil.DEFAULT_PARALLELISM, duration * 2));
+                List<BrokerProbe> brokers = new ArrayList<>(ParallelUtil.successData(probes).values());
+                brokers.sort((a, b) -> Double.compare(b.endToEnd().p99Millis(), a.endToEnd().p99Millis()));
+                Map<String, String> failedBrokers = new TreeMap<>(ParallelUtil.errorMessages(probes));
+                brokerNames.stream().filter(name -> !queueNums.containsKey(name)).forEach(name -> failedBrokers.put(name, "probe topic has no queue on this broker"));
+                return new LatencyProbeReport(topic, clusterName, System.currentTimeMillis() - begin, created, brokers, failedBrokers);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                if (consumer != null) {
+                    consumer.shutdown();
+                }
+                if (receiver != null) {
+                    receiver.shutdownNow();
+                }
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    /**
+     * 在集群中还没有探测主题的master上创建探测主题, 返回创建的broker; 等待新路由注册最多maxWaitMillis
+     */
+    private List<String> ensureProbeTopic(DefaultMQAdminExt admin, String clusterName, String topic, long maxWaitMillis) throws Exception {
+        List<String> existing = new ArrayList<>();
+        try {
+            for (QueueData queueData : admin.examineTopicRouteInfo(topic).getQueueDatas()) {
+                existing.add(queueData.getBrokerName());
+            }
+        } catch (Exception e) {
+            // 主题不存在
+        }
+        List<String> created = new ArrayList<>();
+        for (BrokerData brokerData : Broker.getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+            String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+            if (masterAddr != null && !existing.contains(brokerData.getBrokerName())) {
+                admin.createAndUpdateTopicConfig(masterAddr, new TopicConfig(topic, PROBE_QUEUE_NUMS, PROBE_QUEUE_NUMS));
+                created.add(brokerData.getBrokerName());
+            }
+        }
+        if (!created.isEmpty()) {
+            // 等待broker向nameserver注册新的路由
+            long routeDeadline = System.currentTimeMillis() + maxWaitMillis;
+            while (System.currentTimeMillis() < routeDeadline && !routeContains(admin, topic, created)) {
+                TimeUnit.MILLISECONDS.sleep(500);
+            }
+        }
+        return created;
+    }
+
+    private boolean routeContains(DefaultMQAdminExt admin, String topic, List<String> brokerNames) {
+        try {
+            List<String> routed = admin.examineTopicRouteInfo(topic).getQueueDatas().stream().map(QueueData::getBrokerName).toList();
+            return routed.containsAll(brokerNames);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 消费者已定位到每个队列的最大位点; 每个队列依次发送探测消息, 接收线程拉取到同一条探测消息后计算延迟
+     */
+    private BrokerProbe probeBroker(DefaultMQProducer producer, Map<String, CompletableFuture<MessageExt>> awaiting,
+                                    String topic, String brokerName, int queues, int rounds, long deadline) throws Exception {
+        ProbeSamples samples = new ProbeSamples();
+        for (int round = 0; round < rounds && System.currentTimeMillis() < deadline; round++) {
+            for (int queueId = 0; queueId < queues && System.currentTimeMillis() < deadline; queueId++) {
+                MessageQueue mq = new MessageQueue(topic, brokerName, queueId);
+                String probeId = UUID.randomUUID().toString();
+                CompletableFuture<MessageExt> received = new CompletableFuture<>();
+                awaiting.put(probeId, received);
+
+                Message message = new Message(topic, String.valueOf(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+                message.putUserProperty(PROBE_ID_PROPERTY, probeId);
+                long sendStart = System.nanoTime();
+                try {
+                    SendResult result = producer.send(message, mq);
+                    samples.sendRt.add(System.nanoTime() - sendStart);
+                    if (result.getSendStatus() != SendStatus.SEND_OK) {
+                        samples.errors.putIfAbsent(result.getSendStatus().name(), "queue " + queueId);
+                    }
+                } catch (Exception e) {
+                    samples.errors.putIfAbsent(ParallelUtil.errorMessage(e), "queue " + queueId);
+                    awaiting.remove(probeId);
+                    continue;
+                }
+                samples.sent++;
+                MessageExt msg;
+                try {
+                    msg = received.get(Math.max(1, deadline - System.currentTimeMillis()) + 1000, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    awaiting.remove(probeId);
+                    msg = null;
+                }
+                if (msg == null) {
+                    samples.lost++;
+                    continue;
+                }
+                samples.endToEnd.add(System.nanoTime() - sendStart);
+                samples.storeToConsume.add(TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - msg.getStoreTimestamp())));
+            }
+        }
+        return new BrokerProbe(brokerName, queues, samples.sent, samples.sent - samples.lost, samples.lost,
+                StatsUtil.latencySummary(toArray(samples.sendRt)), StatsUtil.latencySummary(toArray(samples.storeToConsume)),
+                StatsUtil.latencySummary(toArray(samples.endToEnd)), samples.errors);
+    }
+
+    /**
+     * 持续拉取探测主题的消息, 按探测id完成等待中的探测; 消费者关闭后poll抛出异常, 线程随之退出
+     */
+    private static void receiveProbes(DefaultLitePullConsumer consumer, Map<String, CompletableFuture<MessageExt>> awaiting) {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<MessageExt> messages;
+            try {
+                messages = consumer.poll(PROBE_POLL_TIMEOUT_MILLIS);
+            } catch (Exception e) {
+                return;
+            }
+            for (MessageExt msg : messages) {
+                String probeId = msg.getUserProperty(PROBE_ID_PROPERTY);
+                CompletableFuture<MessageExt> received = probeId == null ? null : awaiting.remove(probeId);
+                if (received != null) {
+                    received.complete(msg);
+                }
+            }
+        }
+    }
+
+    private static long[] toArray(List<Long> values) {
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -1,15 +1,49 @@
 package org.apache.rocketmq.mcp.tool;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MQVersion;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageDecoder;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.common.message.MessageQueue;
 import org.apache.rocketmq.common.message.MessageRequestMode;
+import org.apache.rocketmq.common.utils.NetworkUtil;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.common.RetryUtil;
+import org.apache.rocketmq.mcp.common.StatsUtil;
+import org.apache.rocketmq.mcp.service.GroupSnapshotCache;
+import org.apache.rocketmq.mcp.service.SubscriptionGroupCatalog;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.admin.ConsumeStats;
+import org.apache.rocketmq.remoting.protocol.admin.OffsetWrapper;
+import org.apache.rocketmq.remoting.protocol.admin.TopicOffset;
+import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.remoting.protocol.body.Connection;
+import org.apache.rocketmq.remoting.protocol.body.ConsumeQueueData;
+import org.apache.rocketmq.remoting.protocol.body.ConsumeStatus;
+import org.apache.rocketmq.remoting.protocol.body.ConsumerConnection;
+import org.apache.rocketmq.remoting.protocol.body.ConsumerRunningInfo;
+import org.apache.rocketmq.remoting.protocol.body.ProcessQueueInfo;
+import org.apache.rocketmq.remoting.protocol.body.QueryConsumeQueueResponseBody;
 import org.apache.rocketmq.remoting.protocol.body.SubscriptionGroupWrapper;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
 import org.apache.rocketmq.remoting.protocol.subscription.SubscriptionGroupConfig;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * 利用rocketmq的admin接口提供rocketmq集群信息管理服务
@@ -28,9 +62,172 @@ public class Consumer {
             "updateAndGetGroupReadForbidden",
             "resetOffsetNew",
             "cloneGroupOffset",
-            "updateConsumeOffset"
+            "updateConsumeOffset",
+            "provisionSubscriptionGroupsInCluster",
+            "deleteSubscriptionGroupsInCluster",
+            "applyBatchOffsetReset"
     );
 
+    private static final long SEARCH_OFFSET_TIMEOUT_MILLIS = 10000;
+    private static final int DEFAULT_DLQ_SAMPLE_SIZE = 200;
+    private static final int MAX_DLQ_SAMPLE_SIZE = 2000;
+    private static final int DLQ_SAMPLE_CHUNK_SIZE = 32;
+    private static final int DLQ_GROUP_PARALLELISM = 4;
+    private static final int MAX_FAILURE_CLUSTERS = 100;
+    private static final long DEFAULT_GROWTH_WINDOW_MILLIS = 3600000;
+    private static final int DEFAULT_MAX_RUNNING_INFO_CLIENTS = 200;
+    private static final int THREAD_SIGNATURE_FRAMES = 8;
+    private static final int MAX_THREAD_SIGNATURES = 20;
+    private static final int OUTLIER_FACTOR = 3;
+    private static final long OUTLIER_MIN_CACHED_MESSAGES = 1000;
+    private static final long OUTLIER_QUEUE_IDLE_MILLIS = 60000;
+    private static final String CONSUME_STATS_KEY = "consumeStats";
+    private static final String CONNECTION_KEY = "connection";
+    private static final int MAX_LISTED_QUEUES = 50;
+    private static final double BROKER_CONCENTRATION_THRESHOLD = 0.8;
+
+    @Autowired
+    private SubscriptionGroupCatalog subscriptionGroupCatalog;
+    @Autowired
+    private GroupSnapshotCache groupSnapshotCache;
+
+    public record GroupTopic(String consumerGroup, String topic) {
+        public String label() {
+            return consumerGroup + "@" + topic;
+        }
+    }
+
+    public record QueueOffsetDiff(String brokerName, int queueId, long currentOffset, long targetOffset, long brokerOffset) {
+    }
+
+    /**
+     * replayMessages: 重置后需要重新消费的消息数(目标位点早于当前位点); skipMessages: 重置后跳过的消息数(目标位点晚于当前位点)
+     */
+    public record PairResetPlan(String consumerGroup, String topic, long replayMessages, long skipMessages,
+                                List<QueueOffsetDiff> queues) {
+    }
+
+    /**
+     * failures: group@topic 或 group@topic/brokerName/queueId -> 错误信息
+     */
+    public record OffsetResetPreview(long timestamp, List<PairResetPlan> pairs, Map<String, String> failures) {
+    }
+
+    private record QueueTarget(GroupTopic pair, String brokerName, String brokerAddr, int queueId) {
+    }
+
+    /**
+     * 批量订阅组操作的结果
+     * matrix: 订阅组 -> (broker地址 -> 状态), 状态为OK/MISSING(创建后不存在)/STILL_PRESENT(删除后仍存在)/FAILED/UNVERIFIED(回读失败)
+     */
+    public record BulkGroupResult(boolean success, List<String> brokers, Map<String, Map<String, String>> matrix,
+                                  Map<String, String> failedBrokers) {
+    }
+
+    /**
+     * 重试/死信主题的统计; messagesInWindow: 统计窗口内新增的消息数, growthPerMinute由其换算
+     */
+    public record DeadLetterTopicStats(String topic, boolean exists, long messages, long messagesInWindow,
+                                       double growthPerMinute, long lastUpdateTimestamp) {
+    }
+
+    /**
+     * 按 来源主题(重试或死信) + 原始主题 + tag + 重试次数 聚合的失败消息; sampleMsgId为其中一条消息的id
+     */
+    public record FailureCluster(String source, String originalTopic, String tag, int reconsumeTimes, long count,
+                                 String sampleMsgId, long firstStoreTimestamp, long lastStoreTimestamp) {
+    }
+
+    public record DeadLetterReport(String consumerGroup, DeadLetterTopicStats retry, DeadLetterTopicStats dlq,
+                                   int sampledMessages, List<FailureCluster> clusters, Map<String, String> failures) {
+    }
+
+    /**
+     * masters: brokerName -> master地址; offsetTable: 各队列的位点
+     */
+    private record TopicState(Map<String, String> masters, Map<MessageQueue, TopicOffset> offsetTable) {
+    }
+
+    /**
+     * 采样过程中的聚合计数, 只保存计数和一条样本消息id, 不保留消息体
+     */
+    private static final class FailureCounter {
+        private final String source;
+        private final String originalTopic;
+        private final String tag;
+        private final int reconsumeTimes;
+        private final String sampleMsgId;
+        private long count;
+        private long firstStoreTimestamp = Long.MAX_VALUE;
+        private long lastStoreTimestamp;
+
+        private FailureCounter(String source, String originalTopic, String tag, int reconsumeTimes, String sampleMsgId) {
+            this.source = source;
+            this.originalTopic = originalTopic;
+            this.tag = tag;
+            this.reconsumeTimes = reconsumeTimes;
+            this.sampleMsgId = sampleMsgId;
+        }
+
+        private void add(long storeTimestamp) {
+            count++;
+            firstStoreTimestamp = Math.min(firstStoreTimestamp, storeTimestamp);
+            lastStoreTimestamp = Math.max(lastStoreTimestamp, storeTimestamp);
+        }
+
+        private FailureCluster toCluster() {
+            return new FailureCluster(source, originalTopic, tag, reconsumeTimes, count, sampleMsgId, firstStoreTimestamp, lastStoreTimestamp);
+        }
+    }
+
+    /**
+     * 同一状态、同一栈顶的线程; clients: 出现该线程栈的客户端数
+     */
+    public record ThreadSignature(String state, List<String> topFrames, int threads, int clients, List<String> sampleThreadNames) {
+    }
+
+    /**
+     * cachedMessages/cachedMiB: 本地process queue中缓存未消费的消息; maxQueueIdleMillis: 有缓存消息的队列距最近一次消费的最长时间;
+     * outlierReasons为空表示该客户端没有异常
+     */
+    public record ClientRunningSummary(String clientId, String clientAddr, String version, double consumeTps, double consumeFailedTps,
+                                       double pullTps, long cachedMessages, long cachedMiB, long maxQueueIdleMillis, int queues,
+                                       Map<String, Integer> threadStates, List<String> outlierReasons) {
+    }
+
+    public record GroupRunningInfo(String consumerGroup, int connections, int fetchedClients, double totalConsumeTps,
+                                   long totalCachedMessages, List<ClientRunningSummary> clients, List<ThreadSignature> threadSignatures,
+                                   Map<String, String> failedClients) {
+    }
+
+    /**
+     * 单个客户端运行信息的摘要, jstack解析后即丢弃, 只保留线程签名计数
+     */
+    private record ClientDigest(ClientRunningSummary summary, Map<List<String>, Integer> signatures, Map<List<String>, String> sampleThreads) {
+    }
+
+    public record ClientAssignment(String clientId, int queues, long lag, Map<String, Integer> queuesPerBroker) {
+    }
+
+    /**
+     * topClientId: 在该broker上堆积最多的客户端, topClientLagShare为其占该broker堆积的比例
+     */
+    public record BrokerConcentration(String brokerName, int queues, long lag, String topClientId, double topClientLagShare) {
+    }
+
+    /**
+     * cached: 是否使用了缓存的组快照; unassignedQueues: 有消费进度但没有被任何在线客户端分配的队列;
+     * unverifiedQueues: 有客户端的运行信息获取失败时, 没有被其余客户端分配的队列, 无法确认是否未分配;
+     * duplicateAssignedQueues: 同时被多个客户端分配的队列; findings: 检测到的不均衡现象
+     */
+    public record RebalanceSkewReport(String consumerGroup, long snapshotTimestamp, boolean cached, int totalQueues, int clients,
+                                      double idealQueuesPerClient, int maxQueuesPerClient, int minQueuesPerClient, long totalLag,
+                                      List<ClientAssignment> assignments, List<BrokerConcentration> brokers,
+                                      List<String> unassignedQueues, List<String> unverifiedQueues, List<String> duplicateAssignedQueues,
+                                      List<String> findings,
+                                      Map<String, String> failedClients) {
+    }
+
     @Tool(description = "获取消费者组信息")
     public ApiResponse<List<SubscriptionGroupConfig>> examineSubscriptionGroupConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                                      @ToolParam(description = "access key or ak") String ak,
@@ -66,6 +263,25 @@ public class Consumer {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "获取订阅组变更记录, 订阅组目录按broker DataVersion增量刷新, 只返回指定序号之后的变更")
+    public ApiResponse<SubscriptionGroupCatalog.ChangeSet> getSubscriptionGroupChanges(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                                       @ToolParam(description = "access key or ak") String ak,
+                                                                                       @ToolParam(description = "secret key or sk") String sk,
+                                                                                       @ToolParam(description = "起始变更序号, 返回大于该序号的变更, 首次调用传0") long sinceSequence) {
+        String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        if (!subscriptionGroupCatalog.isStale(clusterKey)) {
+            return ApiResponse.success(subscriptionGroupCatalog.changesSince(clusterKey, sinceSequence));
+        }
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                subscriptionGroupCatalog.refresh(clusterKey, admin, false);
+                return subscriptionGroupCatalog.changesSince(clusterKey, sinceSequence);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
     @Tool(description = "获取消费者组消费进度")
     public ApiResponse<Object> examineConsumeStats(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                    @ToolParam(description = "access key or ak") String ak,
@@ -95,6 +311,76 @@ public class Consumer {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "汇总消费者组所有客户端的运行信息: 并发获取每个客户端的运行状态和线程栈, 按线程状态和栈顶签名聚合线程, 汇总消费TPS和本地缓存堆积, 异常客户端排在最前; 不获取线程栈时与analyzeRebalanceSkew共享短期缓存的组快照")
+    public ApiResponse<GroupRunningInfo> getGroupRunningInfo(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                             @ToolParam(description = "access key or ak") String ak,
+                                                             @ToolParam(description = "secret key or sk") String sk,
+                                                             @ToolParam(description = "消费者组") String consumerGroup,
+                                                             @ToolParam(description = "是否获取线程栈, 默认true", required = false) Boolean jstack,
+                                                             @ToolParam(description = "最多获取的客户端数, 默认200", required = false) Integer maxClients,
+                                                             @ToolParam(description = "同时获取的客户端数, 默认16", required = false) Integer parallelism,
+                                                             @ToolParam(description = "不获取线程栈时是否忽略缓存重新采集, 默认false", required = false) Boolean refresh) {
+        boolean withJstack = !Boolean.FALSE.equals(jstack);
+        int clientLimit = maxClients == null || maxClients <= 0 ? DEFAULT_MAX_RUNNING_INFO_CLIENTS : maxClients;
+        int workers = parallelism == null || parallelism <= 0 ? ParallelUtil.DEFAULT_PARALLELISM : parallelism;
+        String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        GroupSnapshotCache.GroupSnapshot cached = withJstack || Boolean.TRUE.equals(refresh) ? null : groupSnapshotCache.get(clusterKey, consumerGroup);
+        if (cached != null) {
+            return ApiResponse.success(summarizeSnapshot(consumerGroup, cached));
+        }
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                if (!withJstack) {
+                    GroupSnapshotCache.GroupSnapshot snapshot = collectGroupSnapshot(admin, consumerGroup, clientLimit, workers);
+                    if (snapshot.consumeStats() != null) {
+                        groupSnapshotCache.put(clusterKey, consumerGroup, snapshot);
+                    }
+                    return summarizeSnapshot(consumerGroup, snapshot);
+                }
+                Map<String, Connection> connections = new TreeMap<>();
+                for (Connection connection : admin.examineConsumerConnectionInfo(consumerGroup).getConnectionSet()) {
+                    connections.put(connection.getClientId(), connection);
+                }
+                List<String> clientIds = connections.keySet().stream().limit(clientLimit).toList();
+                long now = System.currentTimeMillis();
+                Map<String, ApiResponse<ClientDigest>> digests = ParallelUtil.invokeAll(clientIds,
+                        clientId -> digestRunningInfo(connections.get(clientId), admin.getConsumerRunningInfo(consumerGroup, clientId, true), now),
+                        workers, ParallelUtil.DEFAULT_TIMEOUT_MILLIS * 2);
+                Map<String, String> failedClients = new TreeMap<>(ParallelUtil.errorMessages(digests));
+                connections.keySet().stream().skip(clientLimit).forEach(clientId -> failedClients.put(clientId, "skipped, exceeds maxClients"));
+                return summarizeRunningInfo(consumerGroup, connections.size(), ParallelUtil.successData(digests).values(), failedClients);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "分析消费者组的队列分配和重平衡倾斜: 一次并发采集消费统计、连接信息和各客户端的队列分配, 计算每个客户端的队列数和堆积、每个broker的堆积集中度, 标记不均衡; 采集结果短期缓存, 同一个组的后续分析和不获取线程栈的getGroupRunningInfo直接复用")
+    public ApiResponse<RebalanceSkewReport> analyzeRebalanceSkew(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                 @ToolParam(description = "access key or ak") String ak,
+                                                                 @ToolParam(description = "secret key or sk") String sk,
+                                                                 @ToolParam(description = "消费者组") String consumerGroup,
+                                                                 @ToolParam(description = "是否忽略缓存重新采集, 默认false", required = false) Boolean refresh) {
+        String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        GroupSnapshotCache.GroupSnapshot cached = Boolean.TRUE.equals(refresh) ? null : groupSnapshotCache.get(clusterKey, consumerGroup);
+        if (cached != null) {
+            return ApiResponse.success(analyzeSkew(consumerGroup, cached, true));
+        }
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                GroupSnapshotCache.GroupSnapshot snapshot = collectGroupSnapshot(admin, consumerGroup, DEFAULT_MAX_RUNNING_INFO_CLIENTS,
+                        ParallelUtil.DEFAULT_PARALLELISM);
+                if (snapshot.consumeStats() == null) {
+                    throw new IllegalStateException(snapshot.failedClients().get(CONSUME_STATS_KEY));
+                }
+                groupSnapshotCache.put(clusterKey, consumerGroup, snapshot);
+                return analyzeSkew(consumerGroup, snapshot, false);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
     @Tool(description = "创建和更新订阅组配置")
     public ApiResponse<String> createAndUpdateSubscriptionGroupConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                       @ToolParam(description = "access key or ak") String ak,
@@ -104,6 +390,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.createAndUpdateSubscriptionGroupConfig(addr, config);
+                subscriptionGroupCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -120,6 +407,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.createAndUpdateSubscriptionGroupConfigList(brokerAddr, configs);
+                subscriptionGroupCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -127,6 +415,186 @@ public class Consumer {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "在集群的所有master上并发批量创建或更新订阅组, 失败自动重试, 通过订阅组目录校验结果")
+    public ApiResponse<BulkGroupResult> provisionSubscriptionGroupsInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                             @ToolParam(description = "access key or ak") String ak,
+                                                                             @ToolParam(description = "secret key or sk") String sk,
+                                                                             @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                             @ToolParam(description = "订阅组配置列表") List<SubscriptionGroupConfig> configs,
+                                                                             @ToolParam(description = "每个broker失败后的最大重试次数, 默认2", required = false) Integer maxRetries) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                List<String> masters = Broker.getMasterAddresses(admin, clusterName);
+                int retries = maxRetries == null || maxRetries < 0 ? RetryUtil.DEFAULT_MAX_RETRIES : maxRetries;
+                Map<String, String> failedBrokers = ParallelUtil.errorMessages(ParallelUtil.invokeAll(masters,
+                        brokerAddr -> RetryUtil.callWithRetry(() -> {
+                            admin.createAndUpdateSubscriptionGroupConfigList(brokerAddr, configs);
+                            return "success";
+                        }, retries, RetryUtil.DEFAULT_BACKOFF_MILLIS)));
+                List<String> groups = configs.stream().map(SubscriptionGroupConfig::getGroupName).toList();
+                return verifyGroups(admin, AdminUtil.clusterKey(nameserverAddressList, ak, sk), masters, groups, failedBrokers, true);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "在集群的所有master上并发批量删除订阅组, 失败自动重试, 通过订阅组目录校验结果")
+    public ApiResponse<BulkGroupResult> deleteSubscriptionGroupsInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                          @ToolParam(description = "access key or ak") String ak,
+                                                                          @ToolParam(description = "secret key or sk") String sk,
+                                                                          @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                          @ToolParam(description = "订阅组名称列表") List<String> groups,
+                                                                          @ToolParam(description = "每个订阅组删除失败后的最大重试次数, 默认2", required = false) Integer maxRetries) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                List<String> masters = Broker.getMasterAddresses(admin, clusterName);
+                int retries = maxRetries == null || maxRetries < 0 ? RetryUtil.DEFAULT_MAX_RETRIES : maxRetries;
+                Map<String, String> failedBrokers = ParallelUtil.errorMessages(ParallelUtil.invokeAll(masters, brokerAddr -> {
+                    for (String group : groups) {
+                        RetryUtil.callWithRetry(() -> {
+                            admin.deleteSubscriptionGroup(brokerAddr, group);
+                            return "success";
+                        }, retries, RetryUtil.DEFAULT_BACKOFF_MILLIS);
+                    }
+                    return "success";
+                }));
+                return verifyGroups(admin, AdminUtil.clusterKey(nameserverAddressList, ak, sk), masters, groups, failedBrokers, false);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "预览批量重置消费位点: 并发按时间戳搜索每个队列的目标位点, 返回当前位点与目标位点的差异及需要重新消费的消息数, 不做任何修改")
+    public ApiResponse<OffsetResetPreview> previewBatchOffsetReset(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                   @ToolParam(description = "access key or ak") String ak,
+                                                                   @ToolParam(description = "secret key or sk") String sk,
+                                                                   @ToolParam(description = "消费者组和主题列表") List<GroupTopic> pairs,
+                                                                   @ToolParam(description = "重置到的时间戳(毫秒)") long timestamp) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                Map<String, String> masters = new LinkedHashMap<>();
+                ClusterInfo clusterInfo = admin.examineBrokerClusterInfo();
+                for (BrokerData brokerData : Broker.getBrokerDatas(clusterInfo, null)) {
+                    String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                    if (masterAddr != null) {
+                        masters.put(brokerData.getBrokerName(), masterAddr);
+                    }
+                }
+
+                Map<GroupTopic, ApiResponse<ConsumeStats>> stats = ParallelUtil.invokeAll(pairs,
+                        pair -> admin.examineConsumeStats(pair.consumerGroup(), pair.topic()));
+                Map<String, String> failures = new LinkedHashMap<>();
+                ParallelUtil.errorMessages(stats).forEach((pair, message) -> failures.put(pair.label(), message));
+
+                Map<QueueTarget, OffsetWrapper> currentOffsets = new LinkedHashMap<>();
+                ParallelUtil.successData(stats).forEach((pair, consumeStats) -> consumeStats.getOffsetTable().forEach((mq, offsetWrapper) -> {
+                    String brokerAddr = masters.get(mq.getBrokerName());
+                    if (brokerAddr == null) {
+                        failures.put(pair.label() + "/" + mq.getBrokerName() + "/" + mq.getQueueId(), "master not found");
+                    } else if (mq.getTopic().equals(pair.topic())) {
+                        currentOffsets.put(new QueueTarget(pair, mq.getBrokerName(), brokerAddr, mq.getQueueId()), offsetWrapper);
+                    }
+                }));
+
+                Map<QueueTarget, ApiResponse<Long>> targets = ParallelUtil.invokeAll(currentOffsets.keySet(),
+                        target -> admin.searchOffset(target.brokerAddr(), target.pair().topic(), target.queueId(), timestamp, SEARCH_OFFSET_TIMEOUT_MILLIS));
+                Map<GroupTopic, List<QueueOffsetDiff>> diffs = new LinkedHashMap<>();
+                targets.forEach((target, response) -> {
+                    if (response.getErrorCode() != 0) {
+                        failures.put(target.pair().label() + "/" + target.brokerName() + "/" + target.queueId(), response.getErrorMessage());
+                        return;
+                    }
+                    OffsetWrapper current = currentOffsets.get(target);
+                    diffs.computeIfAbsent(target.pair(), key -> new ArrayList<>()).add(new QueueOffsetDiff(target.brokerName(), target.queueId(),
+                            current.getConsumerOffset(), response.getData(), current.getBrokerOffset()));
+                });
+
+                List<PairResetPlan> plans = new ArrayList<>();
+                diffs.forEach((pair, queues) -> {
+                    queues.sort(Comparator.comparing(QueueOffsetDiff::brokerName).thenComparingInt(QueueOffsetDiff::queueId));
+                    long replay = 0;
+                    long skip = 0;
+                    for (QueueOffsetDiff queue : queues) {
+                        long delta = queue.currentOffset() - queue.targetOffset();
+                        if (delta > 0) {
+                            replay += delta;
+                        } else {
+                            skip -= delta;
+                        }
+                    }
+                    plans.add(new PairResetPlan(pair.consumerGroup(), pair.topic(), replay, skip, queues));
+                });
+                return new OffsetResetPreview(timestamp, plans, failures);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "批量重置消费位点: 并发将多个消费者组和主题重置到同一时间戳, 返回每一对的执行结果(success/[fail]/[not attempted]/[unknown]); 建议先调用previewBatchOffsetReset预览")
+    public ApiResponse<Map<String, String>> applyBatchOffsetReset(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                  @ToolParam(description = "access key or ak") String ak,
+                                                                  @ToolParam(description = "secret key or sk") String sk,
+                                                                  @ToolParam(description = "消费者组和主题列表") List<GroupTopic> pairs,
+                                                                  @ToolParam(description = "重置到的时间戳(毫秒)") long timestamp,
+                                                                  @ToolParam(description = "整体超时(毫秒), 为空表示等待全部完成; 超时后不再开始新的重置, 已开始的重置不会被中断", required = false) Long timeoutMillis) {
+        long timeout = timeoutMillis == null || timeoutMillis <= 0 ? Long.MAX_VALUE / 2 : timeoutMillis;
+        return AdminUtil.callAdminWithResponse(admin -> {
+            Map<String, String> results = new LinkedHashMap<>();
+            ParallelUtil.invokeAllWrites(pairs, pair -> {
+                admin.resetOffsetNew(pair.consumerGroup(), pair.topic(), timestamp);
+                return "success";
+            }, ParallelUtil.DEFAULT_PARALLELISM, timeout).forEach((pair, response) -> results.put(pair.label(), resetStatus(response)));
+            String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+            pairs.forEach(pair -> groupSnapshotCache.invalidate(clusterKey, pair.consumerGroup()));
+            return results;
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "分析消费者组的重试队列和死信队列: 并发统计%RETRY%/%DLQ%主题的消息数和增长速度, 从队尾流式采样消息, 按原始主题、tag、重试次数聚合失败消息, 内存占用与队列大小无关")
+    public ApiResponse<List<DeadLetterReport>> analyzeDeadLetterQueues(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                       @ToolParam(description = "access key or ak") String ak,
+                                                                       @ToolParam(description = "secret key or sk") String sk,
+                                                                       @ToolParam(description = "消费者组列表") List<String> consumerGroups,
+                                                                       @ToolParam(description = "每个重试/死信主题最多采样的消息数, 默认200", required = false) Integer sampleSize,
+                                                                       @ToolParam(description = "计算增长速度的时间窗口(毫秒), 默认3600000", required = false) Long growthWindowMillis) {
+        int samples = sampleSize == null || sampleSize < 0 ? DEFAULT_DLQ_SAMPLE_SIZE : Math.min(sampleSize, MAX_DLQ_SAMPLE_SIZE);
+        long window = growthWindowMillis == null || growthWindowMillis <= 0 ? DEFAULT_GROWTH_WINDOW_MILLIS : growthWindowMillis;
+        return AdminUtil.callAdminWithResponse(admin -> {
+            Map<String, ApiResponse<DeadLetterReport>> reports = ParallelUtil.invokeAll(consumerGroups, group -> {
+                Map<String, String> failures = new TreeMap<>();
+                Map<String, FailureCounter> counters = new LinkedHashMap<>();
+                long now = System.currentTimeMillis();
+                String retryTopic = MixAll.getRetryTopic(group);
+                String dlqTopic = MixAll.getDLQTopic(group);
+                TopicState retryState = topicState(admin, retryTopic);
+                TopicState dlqState = topicState(admin, dlqTopic);
+                DeadLetterTopicStats retry = deadLetterTopicStats(admin, retryTopic, retryState, now - window, window, failures);
+                DeadLetterTopicStats dlq = deadLetterTopicStats(admin, dlqTopic, dlqState, now - window, window, failures);
+                int sampled = 0;
+                if (dlqState != null) {
+                    sampled += sampleTail(admin, dlqTopic, dlqState, "DLQ", samples, counters, failures);
+                }
+                if (retryState != null) {
+                    sampled += sampleTail(admin, retryTopic, retryState, "RETRY", samples, counters, failures);
+                }
+                List<FailureCluster> clusters = counters.values().stream()
+                        .map(FailureCounter::toCluster)
+                        .sorted(Comparator.comparingLong(FailureCluster::count).reversed())
+                        .toList();
+                return new DeadLetterReport(group, retry, dlq, sampled, clusters, failures);
+            }, DLQ_GROUP_PARALLELISM, ParallelUtil.DEFAULT_TIMEOUT_MILLIS * 4);
+
+            List<DeadLetterReport> result = new ArrayList<>(ParallelUtil.successData(reports).values());
+            ParallelUtil.errorMessages(reports).forEach((group, message) ->
+                    result.add(new DeadLetterReport(group, null, null, 0, List.of(), Map.of(group, message))));
+            result.sort(Comparator.comparingDouble((DeadLetterReport report) -> report.dlq() == null ? -1 : report.dlq().growthPerMinute()).reversed());
+            return result;
+        }, ak, sk, nameserverAddressList);
+    }
+
     @Tool(description = "获取消费者组消费统计(按主题)")
     public ApiResponse<Object> examineConsumeStatsByTopic(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                           @ToolParam(description = "access key or ak") String ak,
@@ -229,6 +697,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.resetOffsetByTimestamp(topic, consumerGroup, timestamp, true);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), consumerGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -245,6 +714,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.deleteSubscriptionGroup(brokerAddr, consumerGroup);
+                subscriptionGroupCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -293,6 +763,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.resetOffsetByTimestampOld(consumerGroup, topic, timestamp, force);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), consumerGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -391,6 +862,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.resetOffsetByQueueId(brokerAddr, consumerGroup, topicName, queueId, resetOffset);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), consumerGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -425,6 +897,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.resetOffsetNew(consumerGroup, topic, timestamp);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), consumerGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -459,6 +932,7 @@ public class Consumer {
         return AdminUtil.callAdminWithResponse(admin -> {
             try {
                 admin.cloneGroupOffset(srcGroup, destGroup, topic, isOffline);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), destGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -509,6 +983,7 @@ public class Consumer {
             try {
                 MessageQueue mq = com.alibaba.fastjson2.JSON.parseObject(mqJson, MessageQueue.class);
                 admin.updateConsumeOffset(brokerAddr, consumeGroup, mq, offset);
+                groupSnapshotCache.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk), consumeGroup);
                 return "success";
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -516,4 +991,421 @@ public class Consumer {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    /**
+     * 强制刷新订阅组目录(每个master一次全量拉取, DataVersion未变的broker不重新比较), 再按broker检查订阅组是否存在
+     */
+    private BulkGroupResult verifyGroups(DefaultMQAdminExt admin, String clusterKey, List<String> masters,
+                                         List<String> groups, Map<String, String> failedBrokers, boolean expectPresent) throws Exception {
+        SubscriptionGroupCatalog.RefreshResult refreshResult = subscriptionGroupCatalog.refresh(clusterKey, admin, true);
+        Map<String, Map<String, SubscriptionGroupConfig>> catalog = subscriptionGroupCatalog.getGroups(clusterKey);
+        Map<String, String> failures = new LinkedHashMap<>(failedBrokers);
+        Map<String, Map<String, String>> matrix = new TreeMap<>();
+        boolean success = true;
+        for (String group : groups) {
+            Map<String, String> row = new TreeMap<>();
+            for (String brokerAddr : masters) {
+                String status;
+                if (failedBrokers.containsKey(brokerAddr)) {
+                    status = "FAILED";
+                } else if (refreshResult.failedBrokers().containsKey(brokerAddr) || !catalog.containsKey(brokerAddr)) {
+                    status = "UNVERIFIED";
+                } else if (catalog.get(brokerAddr).containsKey(group) == expectPresent) {
+                    status = "OK";
+                } else {
+                    status = expectPresent ? "MISSING" : "STILL_PRESENT";
+                }
+                success &= "OK".equals(status);
+                row.put(brokerAddr, status);
+            }
+            matrix.put(group, row);
+        }
+        refreshResult.failedBrokers().forEach((brokerAddr, message) -> failures.putIfAbsent(brokerAddr, "verify failed: " + message));
+        return new BulkGroupResult(success, masters, matrix, failures);
+    }
+
+    private static ClientDigest digestRunningInfo(Connection connection, ConsumerRunningInfo info, long now) {
+        double consumeTps = 0;
+        double failedTps = 0;
+        double pullTps = 0;
+        for (ConsumeStatus status : info.getStatusTable().values()) {
+            consumeTps += status.getConsumeOKTPS();
+            failedTps += status.getConsumeFailedTPS();
+            pullTps += status.getPullTPS();
+        }
+        long cachedMessages = 0;
+        long cachedMiB = 0;
+        long maxIdle = 0;
+        for (ProcessQueueInfo queue : info.getMqTable().values()) {
+            cachedMessages += queue.getCachedMsgCount();
+            cachedMiB += queue.getCachedMsgSizeInMiB();
+            if (queue.getCachedMsgCount() > 0 && queue.getLastConsumeTimestamp() > 0) {
+                maxIdle = Math.max(maxIdle, now - queue.getLastConsumeTimestamp());
+            }
+        }
+
+        Map<String, Integer> threadStates = new TreeMap<>();
+        Map<List<String>, Integer> signatures = new HashMap<>();
+        Map<List<String>, String> sampleThreads = new HashMap<>();
+        if (info.getJstack() != null) {
+            for (String block : info.getJstack().split("\\R\\s*\\R")) {
+                List<String> lines = block.lines().filter(line -> !line.isBlank()).toList();
+                if (lines.isEmpty()) {
+                    continue;
+                }
+                // 格式: "<线程名(左对齐补空格)>TID: <id> STATE: <状态>", 之后每行为 "<线程名><栈帧>"
+                String header = lines.get(0);
+                int tidIndex = header.indexOf("TID:");
+                int stateIndex = header.indexOf("STATE:");
+                String threadName = tidIndex > 0 ? header.substring(0, tidIndex).trim() : header.trim();
+                String state = stateIndex >= 0 ? header.substring(stateIndex + "STATE:".length()).trim() : "UNKNOWN";
+                List<String> signature = new ArrayList<>();
+                signature.add(state);
+                for (int i = 1; i < lines.size() && signature.size() <= THREAD_SIGNATURE_FRAMES; i++) {
+                    String frame = lines.get(i).startsWith(threadName) ? lines.get(i).substring(threadName.length()) : lines.get(i);
+                    signature.add(frame.trim());
+                }
+                threadStates.merge(state, 1, Integer::sum);
+                signatures.merge(signature, 1, Integer::sum);
+                sampleThreads.putIfAbsent(signature, threadName);
+            }
+        }
+        ClientRunningSummary summary = new ClientRunningSummary(connection.getClientId(), connection.getClientAddr(),
+                MQVersion.getVersionDesc(connection.getVersion()), consumeTps, failedTps, pullTps, cachedMessages, cachedMiB,
+                maxIdle, info.getMqTable().size(), threadStates, new ArrayList<>());
+        return new ClientDigest(summary, signatures, sampleThreads);
+    }
+
+    /**
+     * 与组内中位数比较标记异常客户端: 本地堆积远高于中位数、消费TPS远低于中位数、有消费失败、有BLOCKED线程、有缓存消息的队列长时间未消费;
+     * 异常原因多的排在前面, 相同时本地堆积多的排在前面
+     */
+    private static List<ClientRunningSummary> flagOutliers(List<ClientRunningSummary> summaries) {
+        long medianCached = StatsUtil.percentile(summaries.stream().mapToLong(ClientRunningSummary::cachedMessages).sorted().toArray(), 0.5);
+        double medianTps = StatsUtil.percentile(summaries.stream().mapToLong(summary -> Math.round(summary.consumeTps() * 1000)).sorted().toArray(), 0.5) / 1000.0;
+        for (ClientRunningSummary summary : summaries) {
+            List<String> reasons = summary.outlierReasons();
+            if (summary.cachedMessages() > OUTLIER_MIN_CACHED_MESSAGES && summary.cachedMessages() > OUTLIER_FACTOR * medianCached) {
+                reasons.add("cached messages " + summary.cachedMessages() + " vs group median " + medianCached);
+            }
+            if (medianTps > 0 && summary.consumeTps() * OUTLIER_FACTOR < medianTps) {
+                reasons.add(String.format("consume TPS %.2f vs group median %.2f", summary.consumeTps(), medianTps));
+            }
+            if (summary.consumeFailedTps() > 0) {
+                reasons.add(String.format("consume failed TPS %.2f", summary.consumeFailedTps()));
+            }
+            if (summary.threadStates().getOrDefault(Thread.State.BLOCKED.name(), 0) > 0) {
+                reasons.add(summary.threadStates().get(Thread.State.BLOCKED.name()) + " BLOCKED threads");
+            }
+            if (summary.maxQueueIdleMillis() > OUTLIER_QUEUE_IDLE_MILLIS) {
+                reasons.add("queue with cached messages idle for " + summary.maxQueueIdleMillis() + "ms");
+            }
+        }
+        return summaries.stream()
+                .sorted(Comparator.comparingInt((ClientRunningSummary summary) -> summary.outlierReasons().size()).reversed()
+                        .thenComparing(Comparator.comparingLong(ClientRunningSummary::cachedMessages).reversed()))
+                .toList();
+    }
+
+    /**
+     * 消费统计和连接信息并发获取, 再并发获取最多clientLimit个客户端的运行信息(不含线程栈);
+     * 消费统计获取失败时consumeStats为null, 错误记录在failedClients中, 这样的快照不放入缓存
+     */
+    private static GroupSnapshotCache.GroupSnapshot collectGroupSnapshot(DefaultMQAdminExt admin, String consumerGroup, int clientLimit,
+                                                                         int parallelism) throws Exception {
+        Map<String, ApiResponse<Object>> base = ParallelUtil.invokeAll(List.of(CONSUME_STATS_KEY, CONNECTION_KEY),
+                key -> CONSUME_STATS_KEY.equals(key) ? admin.examineConsumeStats(consumerGroup) : admin.examineConsumerConnectionInfo(consumerGroup));
+        Map<String, String> failedClients = new TreeMap<>();
+        ConsumeStats consumeStats = null;
+        if (base.get(CONSUME_STATS_KEY).getErrorCode() != 0) {
+            failedClients.put(CONSUME_STATS_KEY, base.get(CONSUME_STATS_KEY).getErrorMessage());
+        } else {
+            consumeStats = (ConsumeStats) base.get(CONSUME_STATS_KEY).getData();
+        }
+        ConsumerConnection connection = new ConsumerConnection();
+        if (base.get(CONNECTION_KEY).getErrorCode() != 0) {
+            failedClients.put(CONNECTION_KEY, base.get(CONNECTION_KEY).getErrorMessage());
+        } else {
+            connection = (ConsumerConnection) base.get(CONNECTION_KEY).getData();
+        }
+        List<String> clientIds = connection.getConnectionSet().stream().map(Connection::getClientId).sorted().toList();
+        Map<String, ApiResponse<ConsumerRunningInfo>> runningInfos = ParallelUtil.invokeAll(clientIds.stream().limit(clientLimit).toList(),
+                clientId -> admin.getConsumerRunningInfo(consumerGroup, clientId, false), parallelism, ParallelUtil.DEFAULT_TIMEOUT_MILLIS * 2);
+        failedClients.putAll(ParallelUtil.errorMessages(runningInfos));
+        clientIds.stream().skip(clientLimit).forEach(clientId -> failedClients.put(clientId, "skipped, exceeds maxClients"));
+        return new GroupSnapshotCache.GroupSnapshot(System.currentTimeMillis(), consumeStats, connection,
+                ParallelUtil.successData(runningInfos), failedClients);
+    }
+
+    /**
+     * 从组快照汇总运行信息, 空闲时长相对快照采集时间计算; 消费统计的错误与运行信息无关, 不列入failedClients
+     */
+    private static GroupRunningInfo summarizeSnapshot(String consumerGroup, GroupSnapshotCache.GroupSnapshot snapshot) {
+        Map<String, Connection> connections = new HashMap<>();
+        snapshot.connection().getConnectionSet().forEach(connection -> connections.put(connection.getClientId(), connection));
+        List<ClientDigest> digests = new ArrayList<>();
+        snapshot.runningInfos().forEach((clientId, info) -> digests.add(digestRunningInfo(connections.get(clientId), info, snapshot.timestamp())));
+        Map<String, String> failedClients = new TreeMap<>(snapshot.failedClients());
+        failedClients.remove(CONSUME_STATS_KEY);
+        return summarizeRunningInfo(consumerGroup, connections.size(), digests, failedClients);
+    }
+
+    private static GroupRunningInfo summarizeRunningInfo(String consumerGroup, int connections, Collection<ClientDigest> digests,
+                                                         Map<String, String> failedClients) {
+        List<ClientRunningSummary> summaries = new ArrayList<>();
+        Map<List<String>, Integer> threadCounts = new HashMap<>();
+        Map<List<String>, Integer> clientCounts = new HashMap<>();
+        Map<List<String>, List<String>> sampleThreads = new HashMap<>();
+        digests.forEach(digest -> {
+            summaries.add(digest.summary());
+            digest.signatures().forEach((signature, count) -> {
+                threadCounts.merge(signature, count, Integer::sum);
+                clientCounts.merge(signature, 1, Integer::sum);
+                List<String> samples = sampleThreads.computeIfAbsent(signature, key -> new ArrayList<>());
+                if (samples.size() < 3) {
+                    samples.add(digest.summary().clientId() + " " + digest.sampleThreads().get(signature));
+                }
+            });
+        });
+        List<ThreadSignature> signatures = threadCounts.entrySet().stream()
+                .sorted(Map.Entry.<List<String>, Integer>comparingByValue().reversed())
+                .limit(MAX_THREAD_SIGNATURES)
+                .map(entry -> new ThreadSignature(entry.getKey().get(0), entry.getKey().subList(1, entry.getKey().size()),
+                        entry.getValue(), clientCounts.get(entry.getKey()), sampleThreads.get(entry.getKey())))
+                .toList();
+        List<ClientRunningSummary> clients = flagOutliers(summaries);
+        return new GroupRunningInfo(consumerGroup, connections, summaries.size(),
+                summaries.stream().mapToDouble(ClientRunningSummary::consumeTps).sum(),
+                summaries.stream().mapToLong(ClientRunningSummary::cachedMessages).sum(), clients, signatures, failedClients);
+    }
+
+    private static RebalanceSkewReport analyzeSkew(String consumerGroup, GroupSnapshotCache.GroupSnapshot snapshot, boolean cached) {
+        Map<MessageQueue, OffsetWrapper> offsets = snapshot.consumeStats().getOffsetTable();
+        Map<MessageQueue, List<String>> owners = new HashMap<>();
+        snapshot.runningInfos().forEach((clientId, info) -> info.getMqTable().keySet().forEach(mq -> {
+            if (offsets.containsKey(mq)) {
+                owners.computeIfAbsent(mq, key -> new ArrayList<>()).add(clientId);
+            }
+        }));
+
+        Map<String, Integer> clientQueues = new TreeMap<>();
+        Map<String, Long> clientLag = new HashMap<>();
+        Map<String, Map<String, Integer>> clientBrokers = new HashMap<>();
+        snapshot.runningInfos().keySet().forEach(clientId -> clientQueues.put(clientId, 0));
+        Map<String, Integer> brokerQueues = new TreeMap<>();
+        Map<String, Long> brokerLag = new HashMap<>();
+        Map<String, Map<String, Long>> brokerClientLag = new HashMap<>();
+        boolean complete = snapshot.failedClients().isEmpty();
+        List<String> unassigned = new ArrayList<>();
+        List<String> unverified = new ArrayList<>();
+        List<String> duplicated = new ArrayList<>();
+        long totalLag = 0;
+        for (Map.Entry<MessageQueue, OffsetWrapper> entry : offsets.entrySet()) {
+            MessageQueue mq = entry.getKey();
+            long lag = Math.max(0, entry.getValue().getBrokerOffset() - entry.getValue().getConsumerOffset());
+            totalLag += lag;
+            brokerQueues.merge(mq.getBrokerName(), 1, Integer::sum);
+            brokerLag.merge(mq.getBrokerName(), lag, Long::sum);
+            String label = mq.getTopic() + "/" + mq.getBrokerName() + "/" + mq.getQueueId();
+            List<String> queueOwners = owners.getOrDefault(mq, List.of());
+            List<String> ownerless = complete ? unassigned : unverified;
+            if (queueOwners.isEmpty() && ownerless.size() < MAX_LISTED_QUEUES) {
+                ownerless.add(label);
+            } else if (queueOwners.size() > 1 && duplicated.size() < MAX_LISTED_QUEUES) {
+                duplicated.add(label + " " + queueOwners);
+            }
+            for (String clientId : queueOwners) {
+                clientQueues.merge(clientId, 1, Integer::sum);
+                clientLag.merge(clientId, lag, Long::sum);
+                clientBrokers.computeIfAbsent(clientId, key -> new TreeMap<>()).merge(mq.getBrokerName(), 1, Integer::sum);
+                brokerClientLag.computeIfAbsent(mq.getBrokerName(), key -> new HashMap<>()).merge(clientId, lag, Long::sum);
+            }
+        }
+
+        List<ClientAssignment> assignments = clientQueues.entrySet().stream()
+                .map(entry -> new ClientAssignment(entry.getKey(), entry.getValue(), clientLag.getOrDefault(entry.getKey(), 0L),
+                        clientBrokers.getOrDefault(entry.getKey(), Map.of())))
+                .sorted(Comparator.comparingLong(ClientAssignment::lag).reversed().thenComparing(ClientAssignment::clientId))
+                .toList();
+        List<BrokerConcentration> brokers = new ArrayList<>();
+        brokerQueues.forEach((brokerName, queues) -> {
+            long lag = brokerLag.get(brokerName);
+            Map.Entry<String, Long> top = brokerClientLag.getOrDefault(brokerName, Map.of()).entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).orElse(null);
+            brokers.add(new BrokerConcentration(brokerName, queues, lag, top == null ? null : top.getKey(),
+                    top == null || lag == 0 ? 0 : (double) top.getValue() / lag));
+        });
+        brokers.sort(Comparator.comparingLong(BrokerConcentration::lag).reversed());
+
+        int clients = assignments.size();
+        int maxQueues = assignments.stream().mapToInt(ClientAssignment::queues).max().orElse(0);
+        int minQueues = assignments.stream().mapToInt(ClientAssignment::queues).min().orElse(0);
+        double ideal = clients == 0 ? 0 : (double) offsets.size() / clients;
+        List<String> findings = new ArrayList<>();
+        if (clients == 0) {
+            findings.add(complete ? "no online client with running info, all " + offsets.size() + " queues are unassigned"
+                    : "no client running info fetched, assignment of " + offsets.size() + " queues is unverified");
+        } else {
+            if (maxQueues - minQueues > 1) {
+                findings.add(String.format("queue count skew: max %d, min %d, ideal %.1f queues per client", maxQueues, minQueues, ideal));
+            }
+            long idleClients = assignments.stream().filter(assignment -> assignment.queues() == 0).count();
+            if (idleClients > 0 && offsets.size() >= clients) {
+                findings.add(idleClients + " clients have no queue although there are enough queues");
+            }
+            ClientAssignment topLag = assignments.get(0);
+            if (clients > 1 && totalLag > 0 && topLag.lag() > Math.max(0.5, 2.0 / clients) * totalLag) {
+                findings.add(String.format("lag concentration: client %s holds %.0f%% of total lag with %d of %d queues",
+                        topLag.clientId(), 100.0 * topLag.lag() / totalLag, topLag.queues(), offsets.size()));
+            }
+            for (BrokerConcentration broker : brokers) {
+                if (clients > 1 && broker.lag() > 0 && broker.topClientLagShare() > BROKER_CONCENTRATION_THRESHOLD) {
+                    findings.add(String.format("broker %s: client %s holds %.0f%% of its lag", broker.brokerName(), broker.topClientId(),
+                            100 * broker.topClientLagShare()));
+                }
+            }
+        }
+        long ownerlessQueues = offsets.keySet().stream().filter(mq -> !owners.containsKey(mq)).count();
+        if (ownerlessQueues > 0 && clients > 0) {
+            findings.add(complete ? ownerlessQueues + " queues are not assigned to any client"
+                    : ownerlessQueues + " queues are not assigned to any fetched client, unverified because of "
+                    + snapshot.failedClients().size() + " failed requests (see failedClients)");
+        }
+        if (!duplicated.isEmpty()) {
+            findings.add(owners.values().stream().filter(queueOwners -> queueOwners.size() > 1).count() + " queues are assigned to more than one client");
+        }
+        return new RebalanceSkewReport(consumerGroup, snapshot.timestamp(), cached, offsets.size(), clients, ideal, maxQueues, minQueues,
+                totalLag, assignments, brokers, unassigned, unverified, duplicated, findings, snapshot.failedClients());
+    }
+
+    /**
+     * 区分失败、超时未开始(位点未改动)和超时时仍在执行(可能只在部分broker上生效)
+     */
+    private static String resetStatus(ApiResponse<String> response) {
+        if (response.getErrorCode() == 0) {
+            return "success";
+        }
+        String message = response.getErrorMessage();
+        if (message != null && message.startsWith(ParallelUtil.NOT_ATTEMPTED)) {
+            return "[not attempted] " + message;
+        }
+        if (message != null && message.startsWith(ParallelUtil.OUTCOME_UNKNOWN)) {
+            return "[unknown] " + message;
+        }
+        return "[fail] " + message;
+    }
+
+    /**
+     * brokerName -> master地址
+     */
+    private static Map<String, String> getMasters(TopicRouteData routeData) {
+        Map<String, String> masters = new HashMap<>();
+        for (BrokerData brokerData : routeData.getBrokerDatas()) {
+            String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+            if (masterAddr != null) {
+                masters.put(brokerData.getBrokerName(), masterAddr);
+            }
+        }
+        return masters;
+    }
+
+    /**
+     * 获取主题的master地址和队列位点, 统计和采样共用一次查询; 主题不存在时返回null
+     */
+    private static TopicState topicState(DefaultMQAdminExt admin, String topic) throws Exception {
+        try {
+            return new TopicState(getMasters(admin.examineTopicRouteInfo(topic)), admin.examineTopicStats(topic).getOffsetTable());
+        } catch (MQClientException e) {
+            if (e.getResponseCode() == ResponseCode.TOPIC_NOT_EXIST) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 统计重试/死信主题的消息数, 并按窗口起点的时间戳搜索位点计算窗口内新增的消息数; 主题不存在(state为null)时exists为false
+     */
+    private DeadLetterTopicStats deadLetterTopicStats(DefaultMQAdminExt admin, String topic, TopicState state, long windowBegin,
+                                                      long windowMillis, Map<String, String> failures) {
+        if (state == null) {
+            return new DeadLetterTopicStats(topic, false, 0, 0, 0, 0);
+        }
+        long messages = 0;
+        long messagesInWindow = 0;
+        long lastUpdateTimestamp = 0;
+        for (Map.Entry<MessageQueue, TopicOffset> entry : state.offsetTable().entrySet()) {
+            TopicOffset offset = entry.getValue();
+            messages += offset.getMaxOffset() - offset.getMinOffset();
+            lastUpdateTimestamp = Math.max(lastUpdateTimestamp, offset.getLastUpdateTimestamp());
+            String brokerAddr = state.masters().get(entry.getKey().getBrokerName());
+            if (offset.getMaxOffset() <= offset.getMinOffset() || brokerAddr == null) {
+                continue;
+            }
+            try {
+                long windowOffset = admin.searchOffset(brokerAddr, topic, entry.getKey().getQueueId(), windowBegin, SEARCH_OFFSET_TIMEOUT_MILLIS);
+                messagesInWindow += offset.getMaxOffset() - Math.max(offset.getMinOffset(), windowOffset);
+            } catch (Exception e) {
+                failures.put(topic + "/" + entry.getKey().getBrokerName() + "/" + entry.getKey().getQueueId(), ParallelUtil.errorMessage(e));
+            }
+        }
+        return new DeadLetterTopicStats(topic, true, messages, messagesInWindow, messagesInWindow * 60000.0 / windowMillis, lastUpdateTimestamp);
+    }
+
+    /**
+     * 从每个队列的队尾向前分块读取consume queue条目, 按块并发拉取消息后立即聚合到counters, 不保留消息体;
+     * 聚合项超过MAX_FAILURE_CLUSTERS后新出现的组合计入"(other)"
+     */
+    private int sampleTail(DefaultMQAdminExt admin, String topic, TopicState state, String source, int sampleSize,
+                           Map<String, FailureCounter> counters, Map<String, String> failures) {
+        Map<String, String> masters = state.masters();
+        Map<MessageQueue, TopicOffset> offsetTable = state.offsetTable();
+        int perQueue = offsetTable.isEmpty() ? 0 : Math.max(1, sampleSize / offsetTable.size());
+        int sampled = 0;
+        for (Map.Entry<MessageQueue, TopicOffset> entry : offsetTable.entrySet()) {
+            MessageQueue mq = entry.getKey();
+            String brokerAddr = masters.get(mq.getBrokerName());
+            if (brokerAddr == null) {
+                continue;
+            }
+            long end = entry.getValue().getMaxOffset();
+            long begin = Math.max(entry.getValue().getMinOffset(), end - perQueue);
+            for (long index = begin; index < end && sampled < sampleSize; index += DLQ_SAMPLE_CHUNK_SIZE) {
+                int count = (int) Math.min(Math.min(DLQ_SAMPLE_CHUNK_SIZE, end - index), sampleSize - sampled);
+                QueryConsumeQueueResponseBody body;
+                try {
+                    body = admin.queryConsumeQueue(brokerAddr, topic, mq.getQueueId(), index, count, null);
+                } catch (Exception e) {
+                    failures.put(topic + "/" + mq.getBrokerName() + "/" + mq.getQueueId(), ParallelUtil.errorMessage(e));
+                    break;
+                }
+                if (body.getQueueData() == null || body.getQueueData().isEmpty()) {
+                    break;
+                }
+                List<String> msgIds = new ArrayList<>();
+                for (ConsumeQueueData data : body.getQueueData()) {
+                    msgIds.add(MessageDecoder.createMessageId(NetworkUtil.string2SocketAddress(brokerAddr), data.getPhysicOffset()));
+                }
+                Map<String, ApiResponse<MessageExt>> fetched = ParallelUtil.invokeAll(msgIds, msgId -> admin.viewMessage(topic, msgId));
+                for (Map.Entry<String, ApiResponse<MessageExt>> result : fetched.entrySet()) {
+                    if (result.getValue().getErrorCode() != 0) {
+                        failures.putIfAbsent(topic + "/viewMessage", result.getValue().getErrorMessage());
+                        continue;
+                    }
+                    MessageExt msg = result.getValue().getData();
+                    String originalTopic = msg.getProperty(MessageConst.PROPERTY_RETRY_TOPIC);
+                    String tag = msg.getTags() == null ? "" : msg.getTags();
+                    String clusterKey = source + "|" + originalTopic + "|" + tag + "|" + msg.getReconsumeTimes();
+                    FailureCounter counter = counters.get(clusterKey);
+                    if (counter == null) {
+                        counter = counters.size() < MAX_FAILURE_CLUSTERS
+                                ? counters.computeIfAbsent(clusterKey, key -> new FailureCounter(source, originalTopic, tag, msg.getReconsumeTimes(), result.getKey()))
+                                : counters.computeIfAbsent(source + "|(other)", key -> new FailureCounter(source, "(other)", "", -1, result.getKey()));
+                    }
+                    counter.add(msg.getStoreTimestamp());
+                    sampled++;
+                }
+            }
+        }
+        return sampled;
+    }
+}
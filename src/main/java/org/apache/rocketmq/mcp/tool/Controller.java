@@ -1,13 +1,25 @@
 package org.apache.rocketmq.mcp.tool;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.client.exception.MQClientException;
 import org.apache.rocketmq.common.Pair;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
 import org.apache.rocketmq.remoting.protocol.body.BrokerMemberGroup;
+import org.apache.rocketmq.remoting.protocol.body.BrokerReplicasInfo;
 import org.apache.rocketmq.remoting.protocol.header.controller.ElectMasterResponseHeader;
+import org.apache.rocketmq.remoting.protocol.header.controller.GetMetaDataResponseHeader;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 
@@ -21,6 +33,22 @@ public class Controller {
             "cleanControllerBrokerData"
     );
 
+    private static final int DEFAULT_SYNC_STATE_BATCH_SIZE = 50;
+
+    public record ControllerState(String controllerAddr, boolean leader, String reportedLeaderAddr) {
+    }
+
+    /**
+     * 副本格式: brokerId@brokerAddress, 不存活的副本带有(offline)标记
+     */
+    public record BrokerSetState(String brokerName, Long masterBrokerId, String masterAddress, Integer masterEpoch,
+                                 int syncStateSetEpoch, List<String> inSyncReplicas, List<String> notInSyncReplicas) {
+    }
+
+    public record ControllerOverview(String leaderAddr, List<ControllerState> controllers, List<BrokerSetState> brokerSets,
+                                     Map<String, String> failures) {
+    }
+
     @Tool(description = "更新控制器配置")
     public ApiResponse<String> updateControllerConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                       @ToolParam(description = "access key or ak") String ak,
@@ -135,4 +163,102 @@ public class Controller {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    @Tool(description = "controller模式集群总览: 并发查询所有controller找出leader, 自动发现全部broker并分批查询同步状态, 返回每组broker的master、epoch和同步副本集合")
+    public ApiResponse<ControllerOverview> getControllerOverview(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                 @ToolParam(description = "access key or ak") String ak,
+                                                                 @ToolParam(description = "secret key or sk") String sk,
+                                                                 @ToolParam(description = "控制器地址列表, 为空时从broker配置controllerAddr中获取", required = false) List<String> controllers,
+                                                                 @ToolParam(description = "集群名称, 为空表示所有集群", required = false) String clusterName,
+                                                                 @ToolParam(description = "每次查询同步状态的broker数量, 默认50", required = false) Integer batchSize) {
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                List<BrokerData> brokerDatas = Broker.getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName);
+                Map<String, String> failures = new LinkedHashMap<>();
+                List<String> controllerAddrs = controllers == null || controllers.isEmpty()
+                        ? discoverControllers(admin, brokerDatas, failures) : controllers;
+                if (controllerAddrs.isEmpty()) {
+                    throw new IllegalStateException("no controller address found, please specify controllers");
+                }
+
+                Map<String, ApiResponse<GetMetaDataResponseHeader>> metaData = ParallelUtil.invokeAll(controllerAddrs, admin::getControllerMetaData);
+                failures.putAll(ParallelUtil.errorMessages(metaData));
+                List<ControllerState> controllerStates = new ArrayList<>();
+                Map<String, Integer> reportedLeaders = new HashMap<>();
+                String leaderAddr = null;
+                for (Map.Entry<String, GetMetaDataResponseHeader> entry : ParallelUtil.successData(metaData).entrySet()) {
+                    GetMetaDataResponseHeader header = entry.getValue();
+                    boolean leader = header.isLeader();
+                    controllerStates.add(new ControllerState(entry.getKey(), leader, header.getControllerLeaderAddress()));
+                    if (leader) {
+                        leaderAddr = entry.getKey();
+                    }
+                    if (StringUtils.isNotBlank(header.getControllerLeaderAddress())) {
+                        reportedLeaders.merge(header.getControllerLeaderAddress(), 1, Integer::sum);
+                    }
+                }
+                if (leaderAddr == null) {
+                    leaderAddr = reportedLeaders.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+                }
+                if (leaderAddr == null) {
+                    return new ControllerOverview(null, controllerStates, new ArrayList<>(), failures);
+                }
+
+                List<String> brokerNames = new ArrayList<>(new TreeSet<>(brokerDatas.stream().map(BrokerData::getBrokerName).toList()));
+                int size = batchSize == null || batchSize <= 0 ? DEFAULT_SYNC_STATE_BATCH_SIZE : batchSize;
+                List<List<String>> batches = IntStream.range(0, (brokerNames.size() + size - 1) / size)
+                        .mapToObj(i -> brokerNames.subList(i * size, Math.min((i + 1) * size, brokerNames.size())))
+                        .toList();
+                String leader = leaderAddr;
+                Map<List<String>, ApiResponse<BrokerReplicasInfo>> syncStates = ParallelUtil.invokeAll(batches,
+                        batch -> admin.getInSyncStateData(leader, batch));
+                ParallelUtil.errorMessages(syncStates).forEach((batch, message) -> failures.put("getInSyncStateData" + batch, message));
+
+                List<BrokerSetState> brokerSets = new ArrayList<>();
+                for (BrokerReplicasInfo replicasInfo : ParallelUtil.successData(syncStates).values()) {
+                    if (replicasInfo.getReplicasInfoTable() == null) {
+                        continue;
+                    }
+                    replicasInfo.getReplicasInfoTable().forEach((brokerName, replicas) -> brokerSets.add(new BrokerSetState(brokerName,
+                            replicas.getMasterBrokerId(), replicas.getMasterAddress(), replicas.getMasterEpoch(), replicas.getSyncStateSetEpoch(),
+                            formatReplicas(replicas.getInSyncReplicas()), formatReplicas(replicas.getNotInSyncReplicas()))));
+                }
+                brokerSets.sort((a, b) -> a.brokerName().compareTo(b.brokerName()));
+                return new ControllerOverview(leaderAddr, controllerStates, brokerSets, failures);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    /**
+     * 从broker配置的controllerAddr(以分号分隔)中获取controller地址, 取第一个能读到配置的broker
+     */
+    private List<String> discoverControllers(DefaultMQAdminExt admin, List<BrokerData> brokerDatas, Map<String, String> failures) {
+        for (BrokerData brokerData : brokerDatas) {
+            if (brokerData.getBrokerAddrs() == null) {
+                continue;
+            }
+            for (String brokerAddr : brokerData.getBrokerAddrs().values()) {
+                try {
+                    String controllerAddr = admin.getBrokerConfig(brokerAddr).getProperty("controllerAddr");
+                    if (StringUtils.isNotBlank(controllerAddr)) {
+                        return List.of(StringUtils.split(controllerAddr.trim(), ';'));
+                    }
+                } catch (Exception e) {
+                    failures.put(brokerAddr, ParallelUtil.errorMessage(e));
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private static List<String> formatReplicas(List<BrokerReplicasInfo.ReplicaIdentity> replicas) {
+        List<String> result = new ArrayList<>();
+        if (replicas != null) {
+            for (BrokerReplicasInfo.ReplicaIdentity replica : replicas) {
+                result.add(replica.getBrokerId() + "@" + replica.getBrokerAddress() + (Boolean.TRUE.equals(replica.getAlive()) ? "" : "(offline)"));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,194 @@
+package org.apache.rocketmq.mcp.tool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.service.TopicLocatorIndex;
+import org.apache.rocketmq.mcp.spring.McpConfig;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.admin.ConsumeStats;
+import org.apache.rocketmq.remoting.protocol.body.ClusterInfo;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.remoting.protocol.route.QueueData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * 多集群联邦查询
+ * 集群配置(mcp.clusters.*)在服务端维护, 工具只需传集群别名, 查询并发分发到各集群, 结果按集群别名标记后合并
+ */
+@org.springframework.stereotype.Service
+public class Federation {
+    public static final List<String> WRITE_OPERATIONS = List.of();
+
+    @Autowired
+    private McpConfig mcpConfig;
+    @Autowired
+    private TopicLocatorIndex topicLocatorIndex;
+
+    public record ClusterProfileSummary(String name, List<String> nameserverAddressList) {
+    }
+
+    /**
+     * results: 集群别名 -> 查询结果, 查询结果为空的集群不出现在results中; failedClusters: 集群别名 -> 错误信息
+     */
+    public record FederatedResult<T>(Map<String, T> results, Map<String, String> failedClusters) {
+    }
+
+    public record TopicLocation(List<String> brokerNames, int totalReadQueueNums, int totalWriteQueueNums) {
+    }
+
+    public record ClusterLag(String cluster, long totalDiff, double consumeTps) {
+    }
+
+    public record LagRanking(String consumerGroup, List<ClusterLag> ranking, Map<String, String> failedClusters) {
+    }
+
+    public record ClusterSummary(List<String> clusterNames, int brokerSets, int masters, int slaves) {
+    }
+
+    @Tool(description = "列出服务端配置的集群别名及其nameserver地址, 用于联邦查询")
+    public ApiResponse<List<ClusterProfileSummary>> listClusterProfiles() {
+        List<ClusterProfileSummary> profiles = new ArrayList<>();
+        mcpConfig.getClusters().forEach((name, profile) -> profiles.add(new ClusterProfileSummary(name, profile.getNameserverAddressList())));
+        return ApiResponse.success(profiles);
+    }
+
+    @Tool(description = "在多个集群中并发查找主题, 返回主题所在的集群、broker及队列数")
+    public ApiResponse<FederatedResult<TopicLocation>> findTopicAcrossClusters(@ToolParam(description = "集群别名列表, 为空表示全部已配置的集群", required = false) List<String> clusters,
+                                                                               @ToolParam(description = "主题名称") String topic) {
+        return fanOut(clusters, admin -> {
+            try {
+                TopicRouteData routeData = admin.examineTopicRouteInfo(topic);
+                List<String> brokerNames = new ArrayList<>();
+                int readQueueNums = 0;
+                int writeQueueNums = 0;
+                for (QueueData queueData : routeData.getQueueDatas()) {
+                    brokerNames.add(queueData.getBrokerName());
+                    readQueueNums += queueData.getReadQueueNums();
+                    writeQueueNums += queueData.getWriteQueueNums();
+                }
+                return new TopicLocation(brokerNames, readQueueNums, writeQueueNums);
+            } catch (MQClientException e) {
+                if (e.getResponseCode() == ResponseCode.TOPIC_NOT_EXIST) {
+                    return null;
+                }
+                throw new RuntimeException(e);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @Tool(description = "通过本地索引定位主题所在的联邦集群、RocketMQ集群和broker组, 支持按前缀查找; 索引定期从各集群的nameserver刷新")
+    public ApiResponse<TopicLocatorIndex.LocateResult> locateTopic(@ToolParam(description = "主题名称, 精确匹配", required = false) String topic,
+                                                                   @ToolParam(description = "主题名称前缀, topic为空时生效, 都为空表示全部主题", required = false) String topicPrefix,
+                                                                   @ToolParam(description = "最多返回的主题数量, 默认100", required = false) Integer limit,
+                                                                   @ToolParam(description = "是否先立即刷新索引", required = false) Boolean refresh) {
+        if (mcpConfig.getClusters().isEmpty()) {
+            return ApiResponse.error("no cluster profile configured, please configure mcp.clusters.*");
+        }
+        if (Boolean.TRUE.equals(refresh) || topicLocatorIndex.isEmpty()) {
+            topicLocatorIndex.refresh();
+        }
+        return ApiResponse.success(topicLocatorIndex.locate(topic, topicPrefix, limit));
+    }
+
+    @Tool(description = "在多个集群中并发查询消费组的消费堆积, 按堆积从大到小排序")
+    public ApiResponse<LagRanking> rankConsumerLagAcrossClusters(@ToolParam(description = "集群别名列表, 为空表示全部已配置的集群", required = false) List<String> clusters,
+                                                                 @ToolParam(description = "消费者组") String consumerGroup) {
+        ApiResponse<FederatedResult<ConsumeStats>> response = fanOut(clusters, admin -> {
+            try {
+                return admin.examineConsumeStats(consumerGroup);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        if (response.getErrorCode() != 0) {
+            return ApiResponse.error(response.getErrorCode(), response.getErrorMessage());
+        }
+        List<ClusterLag> ranking = new ArrayList<>();
+        response.getData().results().forEach((cluster, stats) -> ranking.add(new ClusterLag(cluster, stats.computeTotalDiff(), stats.getConsumeTps())));
+        ranking.sort(Comparator.comparingLong(ClusterLag::totalDiff).reversed());
+        return ApiResponse.success(new LagRanking(consumerGroup, ranking, response.getData().failedClusters()));
+    }
+
+    @Tool(description = "并发获取多个集群的概况: 集群名称、broker组数量、master和slave数量")
+    public ApiResponse<FederatedResult<ClusterSummary>> getClusterSummaryAcrossClusters(@ToolParam(description = "集群别名列表, 为空表示全部已配置的集群", required = false) List<String> clusters) {
+        return fanOut(clusters, admin -> {
+            try {
+                ClusterInfo clusterInfo = admin.examineBrokerClusterInfo();
+                List<String> clusterNames = clusterInfo.getClusterAddrTable() == null
+                        ? new ArrayList<>() : new ArrayList<>(clusterInfo.getClusterAddrTable().keySet());
+                List<BrokerData> brokerDatas = Broker.getBrokerDatas(clusterInfo, null);
+                int masters = 0;
+                int slaves = 0;
+                for (BrokerData brokerData : brokerDatas) {
+                    if (brokerData.getBrokerAddrs() == null) {
+                        continue;
+                    }
+                    for (Long brokerId : brokerData.getBrokerAddrs().keySet()) {
+                        if (brokerId == MixAll.MASTER_ID) {
+                            masters++;
+                        } else {
+                            slaves++;
+                        }
+                    }
+                }
+                return new ClusterSummary(clusterNames, brokerDatas.size(), masters, slaves);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * 并发在各集群上执行func, 每个集群使用各自的nameserver和凭证
+     */
+    private <T> ApiResponse<FederatedResult<T>> fanOut(List<String> clusters, Function<DefaultMQAdminExt, T> func) {
+        Map<String, McpConfig.ClusterProfile> profiles = new LinkedHashMap<>();
+        List<String> names = clusters == null || clusters.isEmpty() ? new ArrayList<>(mcpConfig.getClusters().keySet()) : clusters;
+        List<String> unknown = new ArrayList<>();
+        for (String name : names) {
+            McpConfig.ClusterProfile profile = mcpConfig.getClusters().get(name);
+            if (profile == null) {
+                unknown.add(name);
+            } else {
+                profiles.put(name, profile);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            return ApiResponse.error("unknown cluster profiles: " + unknown + ", configured: " + mcpConfig.getClusters().keySet());
+        }
+        if (profiles.isEmpty()) {
+            return ApiResponse.error("no cluster profile configured, please configure mcp.clusters.*");
+        }
+
+        Map<String, ApiResponse<T>> responses = ParallelUtil.invokeAll(profiles.keySet(), name -> {
+            McpConfig.ClusterProfile profile = profiles.get(name);
+            ApiResponse<T> response = AdminUtil.callAdminWithResponse(func, profile.getAk(), profile.getSk(), profile.getNameserverAddressList());
+            if (response.getErrorCode() != 0) {
+                throw new IllegalStateException(response.getErrorMessage());
+            }
+            return response.getData();
+        });
+        Map<String, T> results = new LinkedHashMap<>();
+        ParallelUtil.successData(responses).forEach((name, data) -> {
+            if (data != null) {
+                results.put(name, data);
+            }
+        });
+        return ApiResponse.success(new FederatedResult<>(results, ParallelUtil.errorMessages(responses)));
+    }
+}
@@ -1,23 +1,104 @@
 package org.apache.rocketmq.mcp.tool;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.rocketmq.client.QueryResult;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MixAll;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.apache.rocketmq.common.message.MessageDecoder;
 import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.common.utils.NetworkUtil;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.common.StatsUtil;
+import org.apache.rocketmq.mcp.service.JobRegistry;
+import org.apache.rocketmq.mcp.service.ReplayEngine;
+import org.apache.rocketmq.remoting.protocol.ResponseCode;
+import org.apache.rocketmq.remoting.protocol.admin.TopicOffset;
 import org.apache.rocketmq.remoting.protocol.body.ConsumeMessageDirectlyResult;
+import org.apache.rocketmq.remoting.protocol.body.ConsumeQueueData;
+import org.apache.rocketmq.remoting.protocol.body.QueryConsumeQueueResponseBody;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
 import org.apache.rocketmq.tools.admin.api.MessageTrack;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @org.springframework.stereotype.Service
 public class Message {
     public static final List<String> WRITE_OPERATIONS = List.of(
             "consumeMessageDirectly",
             "cleanExpiredMessages",
-            "resumeCheckHalfMessage"
+            "resumeCheckHalfMessage",
+            "replayMessages"
     );
 
+    private static final int DEFAULT_WINDOW_COUNT = 8;
+    private static final int DEFAULT_WINDOW_PARALLELISM = 4;
+    /**
+     * broker端maxMsgsNumBatch的默认值, 普通key查询时单个broker的索引最多返回的条数
+     * (defaultQueryMaxNum只作用于按唯一key查询)
+     */
+    private static final int BROKER_MAX_MSGS_NUM_BATCH = 64;
+    private static final long DEFAULT_SAMPLE_BYTE_BUDGET = 8L * 1024 * 1024;
+    private static final int DEFAULT_MAX_CQ_SAMPLES = 10000;
+    private static final int SAMPLE_CHUNK_SIZE = 32;
+    private static final int MAX_SAMPLE_FETCH = 2000;
+    private static final int HISTOGRAM_TOP_N = 20;
+    private static final int DEFAULT_REPLAY_TPS = 1000;
+    private static final int DEFAULT_REPLAY_BATCH_SIZE = 16;
+
+    @Autowired
+    private ReplayEngine replayEngine;
+    @Autowired
+    private JobRegistry jobRegistry;
+
+    /**
+     * messages: 按存储时间升序, 超过maxNum时只保留最近的maxNum条; matchedMessages: 去重后查到的消息总数;
+     * saturatedWindows: 有broker返回条数达到单broker上限(maxNum与maxMsgsNumBatch的较小值)的子窗口, 这些窗口内可能还有未返回的消息, matchedMessages此时只是下限;
+     * failedWindows: 子窗口 -> 错误信息
+     */
+    public record AdaptiveQueryResult(List<MessageExt> messages, int matchedMessages, int queriedWindows, int totalWindows,
+                                      List<String> saturatedWindows, Map<String, String> failedWindows) {
+    }
+
+    /**
+     * 消息大小(字节)的分布, 由consume queue条目中的消息大小计算, 分位数附带95%置信区间;
+     * 条目按连续块抽取, 块内样本相关, 置信区间以抽样块数chunks作为有效样本量, 是近似值
+     */
+    public record SizeDistribution(int samples, int chunks, long min, long max, double mean, StatsUtil.Interval p50,
+                                   StatsUtil.Interval p90, StatsUtil.Interval p99) {
+    }
+
+    /**
+     * share: 在拉取的样本中出现的比例及95%置信区间(以抽样块数为有效样本量上限的近似值); estimatedMessages: 按比例估计的主题中的消息数
+     */
+    public record HistogramEntry(String value, long sampleCount, StatsUtil.Interval share, long estimatedMessages) {
+    }
+
+    /**
+     * totalMessages: 参与抽样的队列(找到master的队列)当前保留的消息总数; cqSamples: 读取的consume queue条目数; fetchedMessages/fetchedBytes: 拉取了消息体的样本
+     */
+    public record TopicSample(String topic, long totalMessages, int cqSamples, int fetchedMessages, long fetchedBytes,
+                              SizeDistribution sizes, List<HistogramEntry> tags, List<HistogramEntry> keys,
+                              List<HistogramEntry> properties, Map<String, String> failures) {
+    }
+
+    private record SampleChunk(MessageQueue mq, String brokerAddr, long startIndex) {
+    }
+
     @Tool(description = "直接消费消息")
     public ApiResponse<ConsumeMessageDirectlyResult> consumeMessageDirectly(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                             @ToolParam(description = "access key or ak") String ak,
@@ -83,6 +164,255 @@ public class Message {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "按照消息key自适应查询消息: 将时间范围切分为多个子窗口, 从最近的窗口开始分批并发查询, 按消息存储位置去重后按存储时间排序, 查够最大消息数即停止")
+    public ApiResponse<AdaptiveQueryResult> queryMessageByKeyAdaptive(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                                      @ToolParam(description = "access key or ak") String ak,
+                                                                      @ToolParam(description = "secret key or sk") String sk,
+                                                                      @ToolParam(description = "主题") String topic,
+                                                                      @ToolParam(description = "消息key") String key,
+                                                                      @ToolParam(description = "最大消息数") int maxNum,
+                                                                      @ToolParam(description = "开始时间") long begin,
+                                                                      @ToolParam(description = "结束时间") long end,
+                                                                      @ToolParam(description = "子窗口数量, 默认8", required = false) Integer windowCount,
+                                                                      @ToolParam(description = "同时查询的子窗口数量, 默认4", required = false) Integer parallelism) {
+        if (maxNum <= 0) {
+            return ApiResponse.error("maxNum must be greater than 0");
+        }
+        int windows = windowCount == null || windowCount <= 0 ? DEFAULT_WINDOW_COUNT : windowCount;
+        int perBrokerCap = Math.min(maxNum, BROKER_MAX_MSGS_NUM_BATCH);
+        int batchSize = parallelism == null || parallelism <= 0 ? DEFAULT_WINDOW_PARALLELISM : parallelism;
+        return AdminUtil.callAdminWithResponse(admin -> {
+            // 从最近的窗口开始, 每批并发查询batchSize个窗口
+            List<long[]> ranges = splitWindows(begin, end, windows);
+            Map<String, MessageExt> merged = new LinkedHashMap<>();
+            Map<String, String> failedWindows = new LinkedHashMap<>();
+            List<String> saturatedWindows = new ArrayList<>();
+            int queried = 0;
+            while (queried < ranges.size() && merged.size() < maxNum) {
+                List<long[]> batch = ranges.subList(queried, Math.min(queried + batchSize, ranges.size()));
+                queried += batch.size();
+                Map<long[], ApiResponse<List<MessageExt>>> results = ParallelUtil.invokeAll(batch, range -> {
+                    try {
+                        return admin.queryMessage(topic, key, maxNum, range[0], range[1]).getMessageList();
+                    } catch (MQClientException e) {
+                        if (e.getResponseCode() == ResponseCode.NO_MESSAGE) {
+                            return List.of();
+                        }
+                        throw e;
+                    }
+                }, batchSize, ParallelUtil.DEFAULT_TIMEOUT_MILLIS);
+                results.forEach((range, response) -> {
+                    String window = range[0] + "-" + range[1];
+                    if (response.getErrorCode() != 0) {
+                        failedWindows.put(window, response.getErrorMessage());
+                        return;
+                    }
+                    // queryMessage合并了所有broker的结果, 任一broker达到上限都说明该窗口可能被截断
+                    Map<String, Integer> perBroker = new HashMap<>();
+                    response.getData().forEach(msg -> perBroker.merge(String.valueOf(msg.getStoreHost()), 1, Integer::sum));
+                    if (perBroker.values().stream().anyMatch(count -> count >= perBrokerCap)) {
+                        saturatedWindows.add(window);
+                    }
+                    for (MessageExt msg : response.getData()) {
+                        merged.putIfAbsent(msg.getStoreHost() + "@" + msg.getCommitLogOffset(), msg);
+                    }
+                });
+            }
+
+            List<MessageExt> messages = new ArrayList<>(merged.values());
+            messages.sort(Comparator.comparingLong(MessageExt::getStoreTimestamp));
+            if (messages.size() > maxNum) {
+                messages = new ArrayList<>(messages.subList(messages.size() - maxNum, messages.size()));
+            }
+            return new AdaptiveQueryResult(messages, merged.size(), queried, ranges.size(), saturatedWindows, failedWindows);
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "采样分析主题的消息分布: 按队列消息量随机抽取consume queue条目估计消息大小分位数, 在字节预算内并发拉取抽中的消息, 估计tag、key、属性的分布及置信区间, 不做全量扫描")
+    public ApiResponse<TopicSample> sampleTopicMessages(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                        @ToolParam(description = "access key or ak") String ak,
+                                                        @ToolParam(description = "secret key or sk") String sk,
+                                                        @ToolParam(description = "主题") String topic,
+                                                        @ToolParam(description = "拉取消息体的字节预算, 默认8MB", required = false) Long byteBudget,
+                                                        @ToolParam(description = "最多读取的consume queue条目数, 默认10000", required = false) Integer maxCqSamples) {
+        long budget = byteBudget == null || byteBudget <= 0 ? DEFAULT_SAMPLE_BYTE_BUDGET : byteBudget;
+        int cqSamples = maxCqSamples == null || maxCqSamples <= 0 ? DEFAULT_MAX_CQ_SAMPLES : maxCqSamples;
+        return AdminUtil.callAdminWithResponse(admin -> {
+            try {
+                Map<String, String> masters = new HashMap<>();
+                for (BrokerData brokerData : admin.examineTopicRouteInfo(topic).getBrokerDatas()) {
+                    String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                    if (masterAddr != null) {
+                        masters.put(brokerData.getBrokerName(), masterAddr);
+                    }
+                }
+                Map<MessageQueue, TopicOffset> offsetTable = admin.examineTopicStats(topic).getOffsetTable();
+                // 找不到master的队列不会被抽样, 也不计入总数, 否则按比例估计的消息数会偏大
+                long totalMessages = offsetTable.entrySet().stream()
+                        .filter(entry -> masters.containsKey(entry.getKey().getBrokerName()))
+                        .mapToLong(entry -> entry.getValue().getMaxOffset() - entry.getValue().getMinOffset())
+                        .sum();
+                Map<String, String> failures = new ConcurrentSkipListMap<>();
+                if (totalMessages == 0) {
+                    return new TopicSample(topic, 0, 0, 0, 0, null, List.of(), List.of(), List.of(), failures);
+                }
+
+                // 每块读取连续的SAMPLE_CHUNK_SIZE个条目, 块起点随机, 总块数不超过cqSamples / SAMPLE_CHUNK_SIZE
+                int totalChunks = Math.max(1, cqSamples / SAMPLE_CHUNK_SIZE);
+                List<Map.Entry<MessageQueue, TopicOffset>> nonEmptyQueues = new ArrayList<>();
+                offsetTable.forEach((mq, offset) -> {
+                    if (offset.getMaxOffset() - offset.getMinOffset() <= 0) {
+                        return;
+                    }
+                    if (!masters.containsKey(mq.getBrokerName())) {
+                        failures.put(mq.getBrokerName(), "master not found");
+                        return;
+                    }
+                    nonEmptyQueues.add(Map.entry(mq, offset));
+                });
+                List<SampleChunk> chunks = new ArrayList<>();
+                if (nonEmptyQueues.size() > totalChunks) {
+                    // 非空队列比块数多时, 按消息量加权随机抽取totalChunks次队列, 同一队列可能被多次抽中
+                    long[] cumulative = new long[nonEmptyQueues.size()];
+                    for (int i = 0; i < cumulative.length; i++) {
+                        TopicOffset offset = nonEmptyQueues.get(i).getValue();
+                        cumulative[i] = (i == 0 ? 0 : cumulative[i - 1]) + offset.getMaxOffset() - offset.getMinOffset();
+                    }
+                    for (int i = 0; i < totalChunks; i++) {
+                        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextLong(totalMessages) + 1);
+                        Map.Entry<MessageQueue, TopicOffset> queue = nonEmptyQueues.get(index >= 0 ? index : -index - 1);
+                        chunks.add(randomChunk(queue.getKey(), queue.getValue(), masters.get(queue.getKey().getBrokerName())));
+                    }
+                } else {
+                    // 每个非空队列先分配一块, 剩余的块按队列消息量向下取整分配
+                    for (Map.Entry<MessageQueue, TopicOffset> queue : nonEmptyQueues) {
+                        long messages = queue.getValue().getMaxOffset() - queue.getValue().getMinOffset();
+                        long chunkCount = Math.min(1 + (totalChunks - nonEmptyQueues.size()) * messages / totalMessages,
+                                (messages + SAMPLE_CHUNK_SIZE - 1) / SAMPLE_CHUNK_SIZE);
+                        for (int i = 0; i < chunkCount; i++) {
+                            chunks.add(randomChunk(queue.getKey(), queue.getValue(), masters.get(queue.getKey().getBrokerName())));
+                        }
+                    }
+                }
+                Map<SampleChunk, ApiResponse<QueryConsumeQueueResponseBody>> cqResults = ParallelUtil.invokeAll(chunks,
+                        chunk -> admin.queryConsumeQueue(chunk.brokerAddr(), topic, chunk.mq().getQueueId(), chunk.startIndex(), SAMPLE_CHUNK_SIZE, null));
+                ParallelUtil.errorMessages(cqResults).forEach((chunk, message) ->
+                        failures.putIfAbsent(chunk.mq().getBrokerName() + "/" + chunk.mq().getQueueId(), message));
+
+                // 同一队列的抽样块可能重叠, 按物理位置去重
+                Map<String, ConsumeQueueData> entries = new LinkedHashMap<>();
+                Map<String, String> entryBrokers = new HashMap<>();
+                ParallelUtil.successData(cqResults).forEach((chunk, body) -> {
+                    if (body.getQueueData() == null) {
+                        return;
+                    }
+                    for (ConsumeQueueData data : body.getQueueData()) {
+                        String entryKey = chunk.brokerAddr() + "@" + data.getPhysicOffset();
+                        entries.putIfAbsent(entryKey, data);
+                        entryBrokers.putIfAbsent(entryKey, chunk.brokerAddr());
+                    }
+                });
+                long[] sizes = entries.values().stream().mapToLong(ConsumeQueueData::getPhysicSize).sorted().toArray();
+
+                // 在字节预算内随机选出需要拉取消息体的条目
+                List<String> candidates = new ArrayList<>(entries.keySet());
+                Collections.shuffle(candidates);
+                List<String> selected = new ArrayList<>();
+                long fetchBytes = 0;
+                for (String entryKey : candidates) {
+                    int size = entries.get(entryKey).getPhysicSize();
+                    if (fetchBytes + size > budget || selected.size() >= MAX_SAMPLE_FETCH) {
+                        break;
+                    }
+                    fetchBytes += size;
+                    selected.add(entryKey);
+                }
+                Map<String, ApiResponse<MessageExt>> fetched = ParallelUtil.invokeAll(selected, entryKey -> {
+                    String msgId = MessageDecoder.createMessageId(NetworkUtil.string2SocketAddress(entryBrokers.get(entryKey)),
+                            entries.get(entryKey).getPhysicOffset());
+                    return admin.viewMessage(topic, msgId);
+                });
+                List<MessageExt> messages = new ArrayList<>(ParallelUtil.successData(fetched).values());
+                if (!ParallelUtil.errorMessages(fetched).isEmpty()) {
+                    failures.put("viewMessage", ParallelUtil.errorMessages(fetched).size() + " sampled messages could not be fetched");
+                }
+
+                Map<String, Long> tags = new HashMap<>();
+                Map<String, Long> keys = new HashMap<>();
+                Map<String, Long> properties = new HashMap<>();
+                for (MessageExt msg : messages) {
+                    tags.merge(msg.getTags() == null ? "" : msg.getTags(), 1L, Long::sum);
+                    if (msg.getKeys() != null) {
+                        for (String messageKey : msg.getKeys().split(MessageConst.KEY_SEPARATOR)) {
+                            if (!messageKey.isEmpty()) {
+                                keys.merge(messageKey, 1L, Long::sum);
+                            }
+                        }
+                    }
+                    if (msg.getProperties() != null) {
+                        msg.getProperties().keySet().stream()
+                                .filter(name -> !MessageConst.STRING_HASH_SET.contains(name))
+                                .forEach(name -> properties.merge(name, 1L, Long::sum));
+                    }
+                }
+                int chunkCount = (int) ParallelUtil.successData(cqResults).values().stream()
+                        .filter(body -> body.getQueueData() != null && !body.getQueueData().isEmpty())
+                        .count();
+                SizeDistribution sizeDistribution = new SizeDistribution(sizes.length, chunkCount, sizes.length == 0 ? 0 : sizes[0],
+                        sizes.length == 0 ? 0 : sizes[sizes.length - 1], Arrays.stream(sizes).average().orElse(0),
+                        StatsUtil.percentileWithBounds(sizes, 0.5, chunkCount), StatsUtil.percentileWithBounds(sizes, 0.9, chunkCount),
+                        StatsUtil.percentileWithBounds(sizes, 0.99, chunkCount));
+                return new TopicSample(topic, totalMessages, sizes.length, messages.size(), fetchBytes, sizeDistribution,
+                        histogram(tags, messages.size(), chunkCount, totalMessages), histogram(keys, messages.size(), chunkCount, totalMessages),
+                        histogram(properties, messages.size(), chunkCount, totalMessages), failures);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "后台重放消息: 按队列并发拉取源主题(如%DLQ%主题)指定位点或时间范围内的消息, 可按tag过滤, 通过池化生产者限速批量发送到目标主题; 进度写入本地断点, 相同参数或相同重放id再次调用时从断点继续(断点与源主题、目标主题或tag过滤不一致时拒绝); 发送失败的队列不自动重试, 再次调用时断点之后已发送的消息会重复; 立即返回任务id, 通过getMessageReplayProgress查询进度")
+    public ApiResponse<JobRegistry.JobSnapshot> replayMessages(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                               @ToolParam(description = "access key or ak") String ak,
+                                                               @ToolParam(description = "secret key or sk") String sk,
+                                                               @ToolParam(description = "源主题") String sourceTopic,
+                                                               @ToolParam(description = "目标主题, 为空时发送回消息的原始主题(重试/死信消息)", required = false) String targetTopic,
+                                                               @ToolParam(description = "开始时间戳(毫秒)", required = false) Long beginTimestamp,
+                                                               @ToolParam(description = "结束时间戳(毫秒)", required = false) Long endTimestamp,
+                                                               @ToolParam(description = "每个队列的起始位点, 优先于开始时间", required = false) Long startOffset,
+                                                               @ToolParam(description = "每个队列的结束位点(不含), 优先于结束时间", required = false) Long endOffset,
+                                                               @ToolParam(description = "tag过滤表达式, 如 TagA||TagB, 为空表示全部", required = false) String tagFilter,
+                                                               @ToolParam(description = "最大发送TPS, 默认1000, 小于等于0表示不限速", required = false) Integer maxTps,
+                                                               @ToolParam(description = "每批发送的消息数, 默认16", required = false) Integer batchSize,
+                                                               @ToolParam(description = "重放id, 用于继续之前的重放, 为空时由参数计算", required = false) String replayId) {
+        ApiResponse<JobRegistry.JobSnapshot> validationResult = AdminUtil.validateRequiredParameters(ak, sk, nameserverAddressList);
+        if (validationResult != null) {
+            return validationResult;
+        }
+        if (StringUtils.isNotBlank(replayId) && !replayId.matches("[A-Za-z0-9_-]+")) {
+            return ApiResponse.error("replayId may only contain letters, digits, '_' and '-'");
+        }
+        ReplayEngine.ReplayRequest request = new ReplayEngine.ReplayRequest(nameserverAddressList, ak, sk, sourceTopic, targetTopic,
+                beginTimestamp, endTimestamp, startOffset, endOffset, tagFilter, maxTps == null ? DEFAULT_REPLAY_TPS : maxTps,
+                batchSize == null || batchSize <= 0 ? DEFAULT_REPLAY_BATCH_SIZE : batchSize);
+        try {
+            String id = StringUtils.isNotBlank(replayId) ? replayId : ReplayEngine.replayId(request);
+            return ApiResponse.success(replayEngine.submit(id, request).snapshot(0));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    @Tool(description = "查询消息重放任务的进度, 只返回指定事件序号之后的事件")
+    public ApiResponse<JobRegistry.JobSnapshot> getMessageReplayProgress(@ToolParam(description = "任务id") String jobId,
+                                                                         @ToolParam(description = "起始事件序号, 返回大于该序号的事件, 首次调用传0", required = false) Integer sinceEvent) {
+        JobRegistry.Job job = jobRegistry.get(jobId);
+        if (job == null || !ReplayEngine.JOB_TYPE.equals(job.getType())) {
+            return ApiResponse.error("job not found: " + jobId);
+        }
+        return ApiResponse.success(job.snapshot(sinceEvent == null ? 0 : sinceEvent));
+    }
+
     @Tool(description = "按照时间范围查询指定条数 指定broker地址的消息")
     public ApiResponse<QueryResult> queryMessageByKeyAndBroker(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                @ToolParam(description = "access key or ak") String ak,
@@ -180,4 +510,38 @@ public class Message {
         }, ak, sk, nameserverAddressList);
     }
 
+    /**
+     * 按样本计数从大到小取前HISTOGRAM_TOP_N项, 样本来自chunks个抽样块, 有效样本量不超过块数
+     */
+    private static List<HistogramEntry> histogram(Map<String, Long> counts, long samples, long chunks, long totalMessages) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(HISTOGRAM_TOP_N)
+                .map(entry -> {
+                    StatsUtil.Interval share = StatsUtil.wilson(entry.getValue(), samples, Math.min(samples, chunks));
+                    return new HistogramEntry(entry.getKey(), entry.getValue(), share, Math.round(share.estimate() * totalMessages));
+                })
+                .toList();
+    }
+
+    private static SampleChunk randomChunk(MessageQueue mq, TopicOffset offset, String brokerAddr) {
+        long messages = offset.getMaxOffset() - offset.getMinOffset();
+        long start = offset.getMinOffset() + ThreadLocalRandom.current().nextLong(Math.max(1, messages - SAMPLE_CHUNK_SIZE + 1));
+        return new SampleChunk(mq, brokerAddr, start);
+    }
+
+    /**
+     * 将[begin, end]均分为count个子窗口, 按时间倒序返回
+     */
+    private static List<long[]> splitWindows(long begin, long end, int count) {
+        List<long[]> ranges = new ArrayList<>();
+        long span = Math.max(1, (end - begin + count - 1) / count);
+        for (long windowEnd = end; windowEnd > begin; windowEnd -= span) {
+            ranges.add(new long[] {Math.max(begin, windowEnd - span), windowEnd});
+        }
+        if (ranges.isEmpty()) {
+            ranges.add(new long[] {begin, end});
+        }
+        return ranges;
+    }
 }
\ No newline at end of file
@@ -1,19 +1,116 @@
 package org.apache.rocketmq.mcp.tool;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
 import org.apache.rocketmq.mcp.common.AdminUtil;
 import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.common.StatsUtil;
+import org.apache.rocketmq.mcp.service.ProducerPool;
 import org.apache.rocketmq.remoting.protocol.body.ProducerConnection;
 import org.apache.rocketmq.remoting.protocol.body.ProducerTableInfo;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 @org.springframework.stereotype.Service
 public class Producer {
     public static final List<String> WRITE_OPERATIONS = List.of(
-
+            "sendTestMessages"
     );
 
+    private static final int MAX_TEST_MESSAGES = 100000;
+    private static final int MAX_BODY_SIZE = 1024 * 1024;
+    private static final int DEFAULT_BODY_SIZE = 128;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private static final int MAX_DISTINCT_ERRORS = 20;
+    private static final long ASYNC_DRAIN_TIMEOUT_MILLIS = 60000;
+    private static final String BODY_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    @Autowired
+    private ProducerPool producerPool;
+
+    /**
+     * latency: 每次发送调用(单条或一个批次)的耗时; brokers: brokerName -> 发送成功的消息数; errors: 错误信息 -> 次数;
+     * 异步发送等待超时时, 返回当时的统计, 仍未完成的消息数记入errors
+     */
+    public record SendReport(String topic, int requested, int succeeded, int failed, int sendCalls, long elapsedMillis,
+                             double tps, StatsUtil.LatencySummary latency, Map<String, Long> brokers, Map<String, Long> errors) {
+    }
+
+    /**
+     * 一次发送过程中的计数, 异步回调和发送线程共同更新
+     */
+    private static final class SendStats {
+        private final long[] latencies;
+        private final AtomicInteger latencyIndex = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final Map<String, Long> brokers = new ConcurrentHashMap<>();
+        private final Map<String, Long> errors = new ConcurrentHashMap<>();
+        private final AtomicInteger pendingMessages = new AtomicInteger();
+        private volatile Runnable drainListener;
+
+        private SendStats(int sendCalls) {
+            this.latencies = new long[sendCalls];
+        }
+
+        /**
+         * 所有异步发送完成后执行listener, 调用时已经没有未完成的发送则立即执行
+         */
+        private void whenDrained(Runnable listener) {
+            drainListener = listener;
+            if (pendingMessages.get() == 0) {
+                listener.run();
+            }
+        }
+
+        private void asyncCompleted(int messages) {
+            // 先减计数再读listener, 与whenDrained的先写listener再读计数配合, 保证至少有一方执行listener
+            if (pendingMessages.addAndGet(-messages) == 0) {
+                Runnable listener = drainListener;
+                if (listener != null) {
+                    listener.run();
+                }
+            }
+        }
+
+        private void onSuccess(SendResult result, int messages, long startNanos) {
+            latencies[latencyIndex.getAndIncrement()] = System.nanoTime() - startNanos;
+            if (result.getSendStatus() == SendStatus.SEND_OK) {
+                succeeded.addAndGet(messages);
+                brokers.merge(result.getMessageQueue().getBrokerName(), (long) messages, Long::sum);
+            } else {
+                onFailure(result.getSendStatus().name(), messages, -1);
+            }
+        }
+
+        private void onFailure(String error, int messages, long startNanos) {
+            if (startNanos >= 0) {
+                latencies[latencyIndex.getAndIncrement()] = System.nanoTime() - startNanos;
+            }
+            failed.addAndGet(messages);
+            if (errors.size() < MAX_DISTINCT_ERRORS || errors.containsKey(error)) {
+                errors.merge(error, (long) messages, Long::sum);
+            }
+        }
+    }
+
     @Tool(description = "获取生产者连接信息")
     public ApiResponse<ProducerConnection> examineProducerConnectionInfo(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
                                                                          @ToolParam(description = "access key or ak") String ak,
@@ -43,4 +140,127 @@ public class Producer {
         }, ak, sk, nameserverAddressList);
     }
 
-}
\ No newline at end of file
+    @Tool(description = "发送测试消息: 使用池化的长期生产者, 支持批量发送和异步流水线发送, 消息体可选固定内容、随机内容或递增序号, 返回实际TPS和发送耗时分位数")
+    public ApiResponse<SendReport> sendTestMessages(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList,
+                                                    @ToolParam(description = "access key or ak") String ak,
+                                                    @ToolParam(description = "secret key or sk") String sk,
+                                                    @ToolParam(description = "主题") String topic,
+                                                    @ToolParam(description = "消息数量, 最多100000") int count,
+                                                    @ToolParam(description = "每批消息数, 大于1时批量发送, 默认1", required = false) Integer batchSize,
+                                                    @ToolParam(description = "是否异步流水线发送, 默认false", required = false) Boolean async,
+                                                    @ToolParam(description = "异步发送时最多未完成的发送数, 默认64", required = false) Integer maxInFlight,
+                                                    @ToolParam(description = "消息体生成方式: fixed(固定内容)/random(随机内容)/sequence(递增序号和时间戳), 默认fixed", required = false) String generator,
+                                                    @ToolParam(description = "fixed/random消息体字节数, 默认128", required = false) Integer bodySize,
+                                                    @ToolParam(description = "消息tag", required = false) String tag,
+                                                    @ToolParam(description = "消息key前缀, 设置后每条消息的key为 前缀-序号", required = false) String keyPrefix) {
+        ApiResponse<SendReport> validationResult = AdminUtil.validateRequiredParameters(ak, sk, nameserverAddressList);
+        if (validationResult != null) {
+            return validationResult;
+        }
+        if (count <= 0 || count > MAX_TEST_MESSAGES) {
+            return ApiResponse.error("count must be between 1 and " + MAX_TEST_MESSAGES);
+        }
+        String bodyGenerator = StringUtils.defaultIfBlank(generator, "fixed");
+        if (!List.of("fixed", "random", "sequence").contains(bodyGenerator)) {
+            return ApiResponse.error("unknown generator: " + generator);
+        }
+        int batch = batchSize == null || batchSize <= 1 ? 1 : batchSize;
+        int size = bodySize == null || bodySize <= 0 ? DEFAULT_BODY_SIZE : Math.min(bodySize, MAX_BODY_SIZE);
+        int inFlight = maxInFlight == null || maxInFlight <= 0 ? DEFAULT_MAX_IN_FLIGHT : maxInFlight;
+        ProducerPool.Lease lease;
+        try {
+            lease = producerPool.lease(nameserverAddressList, ak, sk);
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+        DefaultMQProducer producer = lease.producer();
+        SendStats stats = new SendStats((count + batch - 1) / batch);
+        try {
+            Semaphore permits = new Semaphore(inFlight);
+            byte[] fixedBody = randomBody(size);
+            long begin = System.nanoTime();
+            for (int start = 0; start < count; start += batch) {
+                List<Message> messages = new ArrayList<>();
+                for (int i = start; i < Math.min(count, start + batch); i++) {
+                    byte[] body = switch (bodyGenerator) {
+                        case "random" -> randomBody(size);
+                        case "sequence" -> ("{\"seq\":" + i + ",\"timestamp\":" + System.currentTimeMillis() + "}").getBytes(StandardCharsets.UTF_8);
+                        default -> fixedBody;
+                    };
+                    Message message = new Message(topic, tag, body);
+                    if (StringUtils.isNotBlank(keyPrefix)) {
+                        message.setKeys(keyPrefix + "-" + i);
+                    }
+                    messages.add(message);
+                }
+                if (Boolean.TRUE.equals(async)) {
+                    permits.acquire();
+                    sendAsync(producer, messages, stats, permits);
+                } else {
+                    sendSync(producer, messages, stats);
+                }
+            }
+            if (!permits.tryAcquire(inFlight, ASYNC_DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                stats.errors.put("still in flight after " + ASYNC_DRAIN_TIMEOUT_MILLIS + "ms", (long) stats.pendingMessages.get());
+            }
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+            long[] latencies = Arrays.copyOf(stats.latencies, Math.min(stats.latencies.length, stats.latencyIndex.get()));
+            return ApiResponse.success(new SendReport(topic, count, stats.succeeded.get(), stats.failed.get(), latencies.length,
+                    elapsedMillis, stats.succeeded.get() * 1000.0 / elapsedMillis, StatsUtil.latencySummary(latencies),
+                    new TreeMap<>(stats.brokers), new TreeMap<>(stats.errors)));
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        } finally {
+            // 异步回调可能晚于返回, 最后一个回调完成后才把生产者还给池, 避免空闲清理关闭仍在发送的生产者
+            stats.whenDrained(lease::close);
+        }
+    }
+
+    private void sendSync(DefaultMQProducer producer, List<Message> messages, SendStats stats) {
+        long start = System.nanoTime();
+        try {
+            SendResult result = messages.size() == 1 ? producer.send(messages.get(0)) : producer.send(messages);
+            stats.onSuccess(result, messages.size(), start);
+        } catch (Exception e) {
+            stats.onFailure(ParallelUtil.errorMessage(e), messages.size(), start);
+        }
+    }
+
+    private void sendAsync(DefaultMQProducer producer, List<Message> messages, SendStats stats, Semaphore permits) {
+        long start = System.nanoTime();
+        stats.pendingMessages.addAndGet(messages.size());
+        SendCallback callback = new SendCallback() {
+            @Override
+            public void onSuccess(SendResult sendResult) {
+                stats.onSuccess(sendResult, messages.size(), start);
+                permits.release();
+                stats.asyncCompleted(messages.size());
+            }
+
+            @Override
+            public void onException(Throwable e) {
+                stats.onFailure(ParallelUtil.errorMessage(e), messages.size(), start);
+                permits.release();
+                stats.asyncCompleted(messages.size());
+            }
+        };
+        try {
+            if (messages.size() == 1) {
+                producer.send(messages.get(0), callback);
+            } else {
+                producer.send(messages, callback);
+            }
+        } catch (Exception e) {
+            callback.onException(e);
+        }
+    }
+
+    private static byte[] randomBody(int size) {
+        byte[] body = new byte[size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            body[i] = (byte) BODY_CHARACTERS.charAt(random.nextInt(BODY_CHARACTERS.length()));
+        }
+        return body;
+    }
+}
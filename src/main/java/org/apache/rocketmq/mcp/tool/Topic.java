@@ -1,15 +1,34 @@
 package org.apache.rocketmq.mcp.tool;
 
 import com.alibaba.fastjson2.JSON;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.common.MixAll;
 import org.apache.rocketmq.common.TopicConfig;
 import org.apache.rocketmq.mcp.common.AdminUtil;
+import org.apache.rocketmq.mcp.common.ApiResponse;
+import org.apache.rocketmq.mcp.common.ParallelUtil;
+import org.apache.rocketmq.mcp.service.JobRegistry;
+import org.apache.rocketmq.mcp.service.TopicCatalog;
+import org.apache.rocketmq.mcp.service.TopicHotspotCollector;
+import org.apache.rocketmq.remoting.protocol.body.TopicConfigSerializeWrapper;
+import org.apache.rocketmq.remoting.protocol.route.BrokerData;
+import org.apache.rocketmq.remoting.protocol.route.QueueData;
+import org.apache.rocketmq.remoting.protocol.route.TopicRouteData;
 import org.apache.rocketmq.remoting.protocol.statictopic.TopicQueueMappingDetail;
+import org.apache.rocketmq.tools.admin.DefaultMQAdminExt;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * 利用rocketmq的admin接口提供rocketmq集群信息管理服务
@@ -24,9 +43,55 @@ public class Topic {
             "createStaticTopic",
             "deleteTopic",
             "deleteTopicInNameServerWithCluster",
-            "deleteTopicInNameServer"
+            "deleteTopicInNameServer",
+            "provisionTopicsInCluster",
+            "teardownTopics"
     );
 
+    private static final long VERIFY_TIMEOUT_MILLIS = 30000;
+
+    private static final String TEARDOWN_JOB_TYPE = "topicTeardown";
+
+    private static final long DEFAULT_SEARCH_OFFSET_TIMEOUT_MILLIS = 3000;
+    private static final long DEFAULT_HOTSPOT_INTERVAL_MILLIS = 10000;
+    private static final long MAX_HOTSPOT_INTERVAL_MILLIS = 60000;
+    private static final int DEFAULT_HOTSPOT_TOP_K = 10;
+
+    @Autowired
+    private TopicCatalog topicCatalog;
+    @Autowired
+    private JobRegistry jobRegistry;
+    @Autowired
+    private TopicHotspotCollector topicHotspotCollector;
+
+    /**
+     * 批量创建主题的结果
+     * matrix: 主题 -> (brokerName -> 状态), 状态为OK/NOT_FOUND/MISMATCH/FAILED/UNVERIFIED(回读失败);
+     * routeMissingTopics: 所有broker都已创建成功, 但nameserver中该集群的主题列表里还没有的主题
+     */
+    public record ProvisionResult(boolean success, String clusterName, List<String> brokerNames,
+                                  Map<String, Map<String, String>> matrix, List<String> routeMissingTopics,
+                                  Map<String, String> failedBrokers) {
+    }
+
+    /**
+     * 主题清理的最终结果
+     * deletedTopics: 所有master上都已不存在且nameserver路由删除成功的主题;
+     * skippedRetryTopics: 因消费组还订阅了其他主题而保留的%RETRY%/%DLQ%主题及原因; remainingTopics: 清理后仍存在于broker上的主题
+     */
+    public record TeardownResult(List<String> deletedTopics, Map<String, String> skippedRetryTopics,
+                                 Map<String, List<String>> remainingTopics, Map<String, String> nameserverFailures) {
+    }
+
+    /**
+     * 按时间戳查询位点的结果
+     * offsets: brokerName -> (queueId -> 位点列表), 位点列表与timestamps一一对应, 查询失败的位置为-1;
+     * failures: brokerName 或 brokerName/queueId -> 错误信息
+     */
+    public record TimestampOffsets(String topic, List<Long> timestamps, Map<String, Map<Integer, long[]>> offsets,
+                                   Map<String, String> failures) {
+    }
+
     @Tool(description = "获取主题列表")
     public String fetchAllTopicList(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk) throws MQClientException {
         return AdminUtil.callAdmin(admin -> {
@@ -38,6 +103,22 @@ public class Topic {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "从本地主题目录检索主题, 支持按名称、前缀、集群、权限、队列数过滤, 目录按broker DataVersion增量刷新")
+    public String searchTopicCatalog(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "主题名称(精确匹配)", required = false) String topic, @ToolParam(description = "主题名称前缀", required = false) String topicPrefix, @ToolParam(description = "集群名称", required = false) String clusterName, @ToolParam(description = "权限(2:写 4:读 6:读写)", required = false) Integer perm, @ToolParam(description = "最小写队列总数", required = false) Integer minQueueNums, @ToolParam(description = "最大写队列总数", required = false) Integer maxQueueNums, @ToolParam(description = "最多返回条数, 默认100", required = false) Integer limit) throws MQClientException {
+        String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        if (!topicCatalog.isStale(clusterKey)) {
+            return JSON.toJSONString(topicCatalog.search(clusterKey, topic, topicPrefix, clusterName, perm, minQueueNums, maxQueueNums, limit));
+        }
+        return AdminUtil.callAdmin(admin -> {
+            try {
+                topicCatalog.refresh(clusterKey, admin, false);
+                return JSON.toJSONString(topicCatalog.search(clusterKey, topic, topicPrefix, clusterName, perm, minQueueNums, maxQueueNums, limit));
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
     @Tool(description = "获取主题统计信息")
     public String examineTopicStats(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "主题名称") String topic) throws MQClientException {
         return AdminUtil.callAdmin(admin -> {
@@ -61,6 +142,69 @@ public class Topic {
     }
 
 
+    @Tool(description = "按时间戳查询主题所有队列的位点: 根据路由找到每个队列, 同一broker的队列在一个任务中依次查询, broker之间并发, 支持一次查询多个时间戳")
+    public String searchOffsetsByTimestamp(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "主题名称") String topic, @ToolParam(description = "时间戳列表(毫秒)") List<Long> timestamps, @ToolParam(description = "单次查询的超时时间(毫秒), 默认3000", required = false) Long timeoutMillis) throws MQClientException {
+        long timeout = timeoutMillis == null || timeoutMillis <= 0 ? DEFAULT_SEARCH_OFFSET_TIMEOUT_MILLIS : timeoutMillis;
+        return AdminUtil.callAdmin(admin -> {
+            try {
+                TopicRouteData routeData = admin.examineTopicRouteInfo(topic);
+                Map<String, String> masters = new HashMap<>();
+                for (BrokerData brokerData : routeData.getBrokerDatas()) {
+                    String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                    if (masterAddr != null) {
+                        masters.put(brokerData.getBrokerName(), masterAddr);
+                    }
+                }
+                Map<String, Integer> queueNums = new TreeMap<>();
+                Map<String, String> failures = new ConcurrentSkipListMap<>();
+                for (QueueData queueData : routeData.getQueueDatas()) {
+                    if (masters.containsKey(queueData.getBrokerName())) {
+                        queueNums.put(queueData.getBrokerName(), queueData.getReadQueueNums());
+                    } else {
+                        failures.put(queueData.getBrokerName(), "master not found");
+                    }
+                }
+
+                // 每个broker一个任务, broker之间并发, 同一个broker上的队列依次查询
+                Map<String, ApiResponse<Map<Integer, long[]>>> searched = ParallelUtil.invokeAll(queueNums.keySet(), brokerName -> {
+                    String brokerAddr = masters.get(brokerName);
+                    Map<Integer, long[]> queueOffsets = new TreeMap<>();
+                    for (int queueId = 0; queueId < queueNums.get(brokerName); queueId++) {
+                        long[] offsets = new long[timestamps.size()];
+                        for (int i = 0; i < offsets.length; i++) {
+                            try {
+                                offsets[i] = admin.searchOffset(brokerAddr, topic, queueId, timestamps.get(i), timeout);
+                            } catch (Exception e) {
+                                offsets[i] = -1;
+                                failures.putIfAbsent(brokerName + "/" + queueId, ParallelUtil.errorMessage(e));
+                            }
+                        }
+                        queueOffsets.put(queueId, offsets);
+                    }
+                    return queueOffsets;
+                });
+                failures.putAll(ParallelUtil.errorMessages(searched));
+                return JSON.toJSONString(new TimestampOffsets(topic, timestamps, new TreeMap<>(ParallelUtil.successData(searched)), failures));
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "检测热点主题和热点队列: 限速并发采集所有业务主题的统计信息, 由两次快照的最大位点差计算每个队列的写入TPS, 返回TPS最高的主题、每个broker上TPS最高的队列和写入倾斜; 上一次采集的快照作为下一次调用的基线, 没有基线时间隔intervalMillis连续采集两次")
+    public String detectTopicHotspots(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "没有基线时两次快照的间隔(毫秒), 默认10000, 最大60000", required = false) Long intervalMillis, @ToolParam(description = "返回的热点主题数和每个broker的热点队列数, 默认10", required = false) Integer topK, @ToolParam(description = "是否丢弃已有基线重新连续采集两次, 默认false", required = false) Boolean resetBaseline) throws MQClientException {
+        long interval = intervalMillis == null || intervalMillis <= 0 ? DEFAULT_HOTSPOT_INTERVAL_MILLIS : Math.min(intervalMillis, MAX_HOTSPOT_INTERVAL_MILLIS);
+        int k = topK == null || topK <= 0 ? DEFAULT_HOTSPOT_TOP_K : topK;
+        String clusterKey = AdminUtil.clusterKey(nameserverAddressList, ak, sk);
+        return AdminUtil.callAdmin(admin -> {
+            try {
+                return JSON.toJSONString(topicHotspotCollector.collect(clusterKey, admin, interval, k, Boolean.TRUE.equals(resetBaseline)));
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
     @Tool(description = "获取主题配置信息")
     public String examineTopicConfig(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "broker地址") String brokerAddr, @ToolParam(description = "主题名称") String topic) throws MQClientException {
         return AdminUtil.callAdmin(admin -> {
@@ -81,6 +225,7 @@ public class Topic {
                 topicConfig.setReadQueueNums(queueNum);
                 topicConfig.setWriteQueueNums(queueNum);
                 admin.createAndUpdateTopicConfig(brokerAddr, topicConfig);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return admin.examineTopicConfig(brokerAddr, topic) != null ? "success" : "fail";
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -97,6 +242,7 @@ public class Topic {
                         add(brokerAddr);
                     }
                 }, topic);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return admin.examineTopicConfig(brokerAddr, topic) == null ? "success" : "fail";
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -109,6 +255,7 @@ public class Topic {
         return AdminUtil.callAdmin(admin -> {
             try {
                 admin.createAndUpdateTopicConfigList(addr, topicConfigList);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -116,6 +263,87 @@ public class Topic {
         }, ak, sk, nameserverAddressList);
     }
 
+    @Tool(description = "在集群的所有master上并发批量创建或更新主题, 回读broker上的主题配置并检查nameserver路由, 返回 主题 x broker 的状态矩阵")
+    public String provisionTopicsInCluster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "集群名称") String clusterName, @ToolParam(description = "主题配置列表") List<TopicConfig> topicConfigList) throws MQClientException {
+        return AdminUtil.callAdmin(admin -> {
+            try {
+                Map<String, String> masters = new LinkedHashMap<>();
+                for (BrokerData brokerData : Broker.getBrokerDatas(admin.examineBrokerClusterInfo(), clusterName)) {
+                    String masterAddr = brokerData.getBrokerAddrs() == null ? null : brokerData.getBrokerAddrs().get(MixAll.MASTER_ID);
+                    if (masterAddr != null) {
+                        masters.put(masterAddr, brokerData.getBrokerName());
+                    }
+                }
+                if (masters.isEmpty()) {
+                    throw new IllegalStateException("no master broker found in cluster " + clusterName);
+                }
+
+                Map<String, ApiResponse<String>> written = ParallelUtil.invokeAll(masters.keySet(), brokerAddr -> {
+                    admin.createAndUpdateTopicConfigList(brokerAddr, topicConfigList);
+                    return "success";
+                });
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
+                Map<String, String> writeErrors = ParallelUtil.errorMessages(written);
+                List<String> writtenBrokers = List.copyOf(ParallelUtil.successData(written).keySet());
+                Map<String, ApiResponse<TopicConfigSerializeWrapper>> readBack = ParallelUtil.invokeAll(writtenBrokers,
+                        brokerAddr -> admin.getUserTopicConfig(brokerAddr, true, VERIFY_TIMEOUT_MILLIS));
+                Set<String> routeTopics = new HashSet<>(admin.fetchTopicsByCLuster(clusterName).getTopicList());
+
+                Map<String, Map<String, String>> matrix = new TreeMap<>();
+                Map<String, String> failedBrokers = new LinkedHashMap<>(writeErrors);
+                boolean success = true;
+                for (TopicConfig expected : topicConfigList) {
+                    Map<String, String> row = new TreeMap<>();
+                    for (Map.Entry<String, String> master : masters.entrySet()) {
+                        String status = provisionStatus(expected, master.getKey(), writeErrors, readBack);
+                        success &= "OK".equals(status);
+                        row.put(master.getValue(), status);
+                    }
+                    matrix.put(expected.getTopicName(), row);
+                }
+                ParallelUtil.errorMessages(readBack).forEach((brokerAddr, message) -> failedBrokers.put(brokerAddr, "read back failed: " + message));
+                List<String> routeMissingTopics = topicConfigList.stream()
+                        .map(TopicConfig::getTopicName)
+                        .filter(topic -> !routeTopics.contains(topic))
+                        .sorted()
+                        .toList();
+                return JSON.toJSONString(new ProvisionResult(success && routeMissingTopics.isEmpty(), clusterName,
+                        List.copyOf(masters.values()), matrix, routeMissingTopics, failedBrokers));
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }, ak, sk, nameserverAddressList);
+    }
+
+    @Tool(description = "后台清理一批主题: 并发从所有master删除, 再清理nameserver路由, 可选同时删除只订阅这些主题的消费组的%RETRY%/%DLQ%主题; 立即返回任务id, 通过getTopicTeardownProgress查询进度")
+    public String teardownTopics(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "主题名称列表") List<String> topics, @ToolParam(description = "是否同时删除相关消费组的%RETRY%/%DLQ%主题, 默认false", required = false) Boolean includeRetryAndDlq) throws MQClientException {
+        JobRegistry.Job job = jobRegistry.submit(TEARDOWN_JOB_TYPE, current -> {
+            ApiResponse<TeardownResult> response = AdminUtil.callAdminWithResponse(admin -> {
+                try {
+                    return teardown(admin, current, topics, Boolean.TRUE.equals(includeRetryAndDlq));
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                } finally {
+                    topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
+                }
+            }, ak, sk, nameserverAddressList);
+            if (response.getErrorCode() != 0) {
+                throw new IllegalStateException(response.getErrorMessage());
+            }
+            return response.getData();
+        });
+        return JSON.toJSONString(job.snapshot(0));
+    }
+
+    @Tool(description = "查询主题清理任务的进度, 只返回指定事件序号之后的事件")
+    public String getTopicTeardownProgress(@ToolParam(description = "任务id") String jobId, @ToolParam(description = "起始事件序号, 返回大于该序号的事件, 首次调用传0", required = false) Integer sinceEvent) {
+        JobRegistry.Job job = jobRegistry.get(jobId);
+        if (job == null || !TEARDOWN_JOB_TYPE.equals(job.getType())) {
+            return "[fail] job not found: " + jobId;
+        }
+        return JSON.toJSONString(job.snapshot(sinceEvent == null ? 0 : sinceEvent));
+    }
+
     @Tool(description = "获取集群列表")
     public String fetchTopicsByCLuster(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "集群名称") String clusterName) throws MQClientException {
         return AdminUtil.callAdmin(admin -> {
@@ -131,7 +359,9 @@ public class Topic {
     public String cleanUnusedTopic(@ToolParam(description = "nameserver/namesrv 地址列表") List<String> nameserverAddressList, @ToolParam(description = "access key or ak") String ak, @ToolParam(description = "secret key or sk") String sk, @ToolParam(description = "集群名称") String cluster) throws MQClientException {
         return AdminUtil.callAdmin(admin -> {
             try {
-                return String.valueOf(admin.cleanUnusedTopic(cluster));
+                boolean result = admin.cleanUnusedTopic(cluster);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
+                return String.valueOf(result);
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
             }
@@ -144,6 +374,7 @@ public class Topic {
             try {
                 TopicQueueMappingDetail detail = JSON.parseObject(mappingDetail, TopicQueueMappingDetail.class);
                 admin.createStaticTopic(addr, defaultTopic, topicConfig, detail, force);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -156,6 +387,7 @@ public class Topic {
         return AdminUtil.callAdmin(admin -> {
             try {
                 admin.deleteTopic(topicName, clusterName);
+                topicCatalog.invalidate(AdminUtil.clusterKey(nameserverAddressList, ak, sk));
                 return "success";
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -209,4 +441,122 @@ public class Topic {
         }, ak, sk, nameserverAddressList);
     }
 
+    private static String provisionStatus(TopicConfig expected, String brokerAddr, Map<String, String> writeErrors,
+                                          Map<String, ApiResponse<TopicConfigSerializeWrapper>> readBack) {
+        if (writeErrors.containsKey(brokerAddr)) {
+            return "FAILED: " + writeErrors.get(brokerAddr);
+        }
+        ApiResponse<TopicConfigSerializeWrapper> response = readBack.get(brokerAddr);
+        if (response == null || response.getErrorCode() != 0) {
+            return "UNVERIFIED";
+        }
+        TopicConfig actual = response.getData().getTopicConfigTable() == null ? null : response.getData().getTopicConfigTable().get(expected.getTopicName());
+        if (actual == null) {
+            return "NOT_FOUND";
+        }
+        if (actual.getReadQueueNums() != expected.getReadQueueNums() || actual.getWriteQueueNums() != expected.getWriteQueueNums()
+                || actual.getPerm() != expected.getPerm()) {
+            return "MISMATCH: readQueueNums=" + actual.getReadQueueNums() + ", writeQueueNums=" + actual.getWriteQueueNums() + ", perm=" + actual.getPerm();
+        }
+        return "OK";
+    }
+
+    private TeardownResult teardown(DefaultMQAdminExt admin, JobRegistry.Job job, List<String> topics, boolean includeRetryAndDlq) throws Exception {
+        Set<String> targets = new LinkedHashSet<>(topics);
+        Map<String, String> skippedRetryTopics = new TreeMap<>();
+        if (includeRetryAndDlq) {
+            addRetryAndDlqTopics(admin, job, topics, targets, skippedRetryTopics);
+        }
+
+        List<String> masters = Broker.getMasterAddresses(admin, null);
+        Set<String> nameservers = new HashSet<>(admin.getNameServerAddressList());
+        job.addTotalSteps(masters.size() * targets.size() + targets.size());
+        job.event("deleting " + targets.size() + " topics from " + masters.size() + " masters");
+
+        // 每个broker一个任务, broker之间并发, 同一个broker上的主题依次删除
+        ParallelUtil.invokeAllWrites(masters, brokerAddr -> {
+            for (String topic : targets) {
+                try {
+                    admin.deleteTopicInBroker(Set.of(brokerAddr), topic);
+                    job.stepSucceeded(null);
+                } catch (Exception e) {
+                    job.stepFailed("delete " + topic + " from " + brokerAddr + ": " + ParallelUtil.errorMessage(e));
+                }
+            }
+            job.event("broker " + brokerAddr + " done");
+            return "success";
+        }, ParallelUtil.DEFAULT_PARALLELISM, Long.MAX_VALUE / 2);
+
+        job.event("cleaning nameserver routes");
+        Map<String, String> nameserverFailures = ParallelUtil.errorMessages(ParallelUtil.invokeAllWrites(targets, topic -> {
+            try {
+                admin.deleteTopicInNameServer(nameservers, topic);
+                job.stepSucceeded(null);
+                return "success";
+            } catch (Exception e) {
+                job.stepFailed("delete route of " + topic + ": " + ParallelUtil.errorMessage(e));
+                throw e;
+            }
+        }, ParallelUtil.DEFAULT_PARALLELISM, Long.MAX_VALUE / 2));
+
+        // 每个master只回读一次主题配置, 检查是否还有残留
+        job.event("verifying");
+        Map<String, List<String>> remainingTopics = new TreeMap<>();
+        ParallelUtil.invokeAll(masters, brokerAddr -> admin.getUserTopicConfig(brokerAddr, true, VERIFY_TIMEOUT_MILLIS)).forEach((brokerAddr, response) -> {
+            if (response.getErrorCode() != 0) {
+                job.event("verify " + brokerAddr + " failed: " + response.getErrorMessage());
+                return;
+            }
+            Map<String, TopicConfig> table = response.getData().getTopicConfigTable();
+            List<String> remaining = targets.stream().filter(topic -> table != null && table.containsKey(topic)).toList();
+            if (!remaining.isEmpty()) {
+                remainingTopics.put(brokerAddr, remaining);
+            }
+        });
+        List<String> deleted = targets.stream()
+                .filter(topic -> !nameserverFailures.containsKey(topic))
+                .filter(topic -> remainingTopics.values().stream().noneMatch(remaining -> remaining.contains(topic)))
+                .toList();
+        return new TeardownResult(deleted, skippedRetryTopics, remainingTopics, nameserverFailures);
+    }
+
+    /**
+     * 只有当消费组订阅的主题全部在本次清理范围内时, 才删除该消费组的%RETRY%/%DLQ%主题
+     */
+    private void addRetryAndDlqTopics(DefaultMQAdminExt admin, JobRegistry.Job job, List<String> topics, Set<String> targets,
+                                      Map<String, String> skippedRetryTopics) {
+        Set<String> groups = new LinkedHashSet<>();
+        for (String topic : topics) {
+            try {
+                groups.addAll(admin.queryTopicConsumeByWho(topic).getGroupList());
+            } catch (Exception e) {
+                job.event("query consumers of " + topic + " failed: " + ParallelUtil.errorMessage(e));
+            }
+        }
+        for (String group : groups) {
+            String retryTopic = MixAll.getRetryTopic(group);
+            String dlqTopic = MixAll.getDLQTopic(group);
+            List<String> otherTopics = new ArrayList<>();
+            try {
+                for (String subscribed : admin.queryTopicsByConsumer(group).getTopicList()) {
+                    if (!targets.contains(subscribed) && !subscribed.equals(retryTopic) && !subscribed.equals(dlqTopic)) {
+                        otherTopics.add(subscribed);
+                    }
+                }
+            } catch (Exception e) {
+                String reason = "query topics of group " + group + " failed: " + ParallelUtil.errorMessage(e);
+                skippedRetryTopics.put(retryTopic, reason);
+                skippedRetryTopics.put(dlqTopic, reason);
+                continue;
+            }
+            if (otherTopics.isEmpty()) {
+                targets.add(retryTopic);
+                targets.add(dlqTopic);
+            } else {
+                String reason = "group " + group + " also consumes " + otherTopics;
+                skippedRetryTopics.put(retryTopic, reason);
+                skippedRetryTopics.put(dlqTopic, reason);
+            }
+        }
+    }
 }